@@ -15,27 +15,110 @@
 
 package com.hazelcast.azure;
 
+import com.hazelcast.core.HazelcastException;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
 /**
  * Structure that represents the discovery output information. It is used to store public and private IP Addresses that
  * is returned from Azure API.
+ * <p>
+ * The addresses are kept as the {@link InetAddress} instances shared through {@link InetAddressCache}, so they are not
+ * parsed or resolved again when the discovery nodes are created.
+ * <p>
+ * An address resolved from a DNS SRV record or read from the registry container carries the port of the member, otherwise
+ * the port is {@code 0} and the members are looked for in the whole {@code hz-port} range.
+ * <p>
+ * The VM ID, zone and fault domain describe the placement of the instance, if known. They are not a part of the identity
+ * of the address.
  */
 final class AzureAddress {
-    private final String privateAddress;
-    private final String publicAddress;
+    private final InetAddress privateAddress;
+    private final InetAddress publicAddress;
+    private final int port;
+    private final String vmId;
+    private final String zone;
+    private final String faultDomain;
 
-    AzureAddress(String privateAddress, String publicAddress) {
+    AzureAddress(InetAddress privateAddress, InetAddress publicAddress) {
+        this(privateAddress, publicAddress, 0);
+    }
+
+    AzureAddress(InetAddress privateAddress, InetAddress publicAddress, int port) {
+        this(privateAddress, publicAddress, port, null, null, null);
+    }
+
+    /**
+     * @param zone the zone in the format of {@link AzureClient#getAvailabilityZone()}
+     */
+    AzureAddress(InetAddress privateAddress, InetAddress publicAddress, int port, String vmId, String zone,
+                 String faultDomain) {
         this.privateAddress = privateAddress;
         this.publicAddress = publicAddress;
+        this.port = port;
+        this.vmId = vmId;
+        this.zone = zone;
+        this.faultDomain = faultDomain;
     }
 
-    String getPrivateAddress() {
+    /**
+     * For test purposes only.
+     */
+    AzureAddress(String privateAddress, String publicAddress) {
+        this(inetAddress(privateAddress), inetAddress(publicAddress));
+    }
+
+    private static InetAddress inetAddress(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(ip);
+        } catch (UnknownHostException e) {
+            throw new HazelcastException(e);
+        }
+    }
+
+    InetAddress getPrivateInetAddress() {
         return privateAddress;
     }
 
-    String getPublicAddress() {
+    InetAddress getPublicInetAddress() {
         return publicAddress;
     }
 
+    /**
+     * @return the port of the member, or {@code 0} if it is not known
+     */
+    int getPort() {
+        return port;
+    }
+
+    String getVmId() {
+        return vmId;
+    }
+
+    String getZone() {
+        return zone;
+    }
+
+    String getFaultDomain() {
+        return faultDomain;
+    }
+
+    AzureAddress withPlacement(String zone, String faultDomain) {
+        return new AzureAddress(privateAddress, publicAddress, port, vmId, zone, faultDomain);
+    }
+
+    String getPrivateAddress() {
+        return privateAddress != null ? privateAddress.getHostAddress() : null;
+    }
+
+    String getPublicAddress() {
+        return publicAddress != null ? publicAddress.getHostAddress() : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -47,6 +130,9 @@ final class AzureAddress {
 
         AzureAddress that = (AzureAddress) o;
 
+        if (port != that.port) {
+            return false;
+        }
         if (privateAddress != null ? !privateAddress.equals(that.privateAddress) : that.privateAddress != null) {
             return false;
         }
@@ -57,14 +143,16 @@ final class AzureAddress {
     public int hashCode() {
         int result = privateAddress != null ? privateAddress.hashCode() : 0;
         result = 31 * result + (publicAddress != null ? publicAddress.hashCode() : 0);
+        result = 31 * result + port;
         return result;
     }
 
     @Override
     public String toString() {
         return "AzureAddress{"
-                + "privateAddress='" + privateAddress + '\''
-                + ", publicAddress='" + publicAddress + '\''
+                + "privateAddress='" + getPrivateAddress() + '\''
+                + ", publicAddress='" + getPublicAddress() + '\''
+                + (port != 0 ? ", port=" + port : "")
                 + '}';
     }
 }
@@ -42,16 +42,23 @@ class AzureAuthenticator {
     }
 
     String refreshAccessToken(String tenantId, String clientId, String clientSecret) {
+        return refreshAccessToken(tenantId, clientId, clientSecret, RESOURCE);
+    }
+
+    /**
+     * Returns an access token of the service principal for the given {@code resource}, e.g. Azure Storage.
+     */
+    String refreshAccessToken(String tenantId, String clientId, String clientSecret, String resource) {
         try {
-            String accessTokenJson = callService(urlFor(tenantId), body(clientId, clientSecret));
+            String accessTokenJson = callService(urlFor(tenantId), body(clientId, clientSecret, resource));
             return extractAccessToken(accessTokenJson);
         } catch (Exception e) {
             throw new NoCredentialsException("Error while fetching access token from Azure API using client-secret", e);
         }
     }
 
-    private String body(String clientId, String clientSecret) {
-        return String.format("grant_type=%s&resource=%s&client_id=%s&client_secret=%s", GRANT_TYPE, RESOURCE,
+    private String body(String clientId, String clientSecret, String resource) {
+        return String.format("grant_type=%s&resource=%s&client_id=%s&client_secret=%s", GRANT_TYPE, resource,
                 clientId, clientSecret);
     }
 
@@ -60,7 +67,7 @@ class AzureAuthenticator {
     }
 
     private String callService(String url, String body) {
-        return RestClient.create(url).withBody(body).get();
+        return RestClient.create(url).withBody(body).post();
     }
 
     private String extractAccessToken(String accessTokenJson) {
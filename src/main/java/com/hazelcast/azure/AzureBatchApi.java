@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.internal.json.Json;
+import com.hazelcast.internal.json.JsonArray;
+import com.hazelcast.internal.json.JsonObject;
+import com.hazelcast.internal.json.JsonValue;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Responsible for sending several Azure Resource Manager GET requests in one round trip through the ARM batch endpoint.
+ */
+class AzureBatchApi {
+    static final String API_VERSION = "2020-06-01";
+
+    private static final ILogger LOGGER = Logger.getLogger(AzureBatchApi.class);
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private final String endpoint;
+    private volatile boolean available = true;
+
+    private List<String> urls;
+    private List<byte[]> digests;
+
+    AzureBatchApi(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Sends GET requests to all the {@code urls}, which must start with the endpoint, in one batch.
+     *
+     * @return the response bodies in the order of the {@code urls}, or {@code null} if the batch could not be executed and
+     * the requests should be sent one by one. A response body which is the same as in the previous call with the same
+     * {@code urls} is {@code null}.
+     * @throws RestClientException if any of the batched requests failed
+     */
+    synchronized List<JsonObject> get(List<String> urls, String accessToken) {
+        if (!available) {
+            return null;
+        }
+        String response;
+        RestClient restClient = RestClient
+                .create(String.format("%s/batch?api-version=%s", endpoint, API_VERSION))
+                .withHeader("Authorization", String.format("Bearer %s", accessToken))
+                .withHeader("Content-Type", "application/json")
+                .withBody(batchRequest(urls));
+        try {
+            response = restClient.post();
+        } catch (RestClientException e) {
+            if (e.getHttpErrorCode() >= HTTP_BAD_REQUEST && e.getHttpErrorCode() < HTTP_INTERNAL_ERROR) {
+                LOGGER.fine("ARM batch requests are not available, sending the requests one by one", e);
+                available = false;
+            } else {
+                LOGGER.finest("ARM batch request failed, sending the requests one by one", e);
+            }
+            return null;
+        }
+        List<JsonObject> result = parseBatchResponse(response, urls);
+        if (result == null) {
+            return null;
+        }
+        // the batch response carries the headers of each response, e.g. its request ID, so only the contents are compared
+        List<byte[]> digests = new ArrayList<byte[]>(result.size());
+        for (int i = 0; i < result.size(); i++) {
+            digests.add(digest(result.get(i)));
+            if (urls.equals(this.urls) && Arrays.equals(this.digests.get(i), digests.get(i))) {
+                result.set(i, null);
+            }
+        }
+        this.urls = urls;
+        this.digests = digests;
+        return result;
+    }
+
+    /**
+     * Forgets the previous batch response, so that the next one is returned even if it did not change.
+     */
+    synchronized void reset() {
+        urls = null;
+        digests = null;
+    }
+
+    /**
+     * Computes the SHA-256 digest of the serialized {@code content} without building the serialized string.
+     */
+    private static byte[] digest(JsonObject content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Writer writer = new OutputStreamWriter(new DigestOutputStream(DISCARD, digest), StandardCharsets.UTF_8);
+            content.writeTo(writer);
+            writer.flush();
+            return digest.digest();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new HazelcastException(e);
+        }
+    }
+
+    private String batchRequest(List<String> urls) {
+        JsonArray requests = new JsonArray();
+        for (int i = 0; i < urls.size(); i++) {
+            requests.add(new JsonObject()
+                    .add("name", String.valueOf(i))
+                    .add("httpMethod", "GET")
+                    .add("url", urls.get(i).substring(endpoint.length())));
+        }
+        return new JsonObject().add("requests", requests).toString();
+    }
+
+    /**
+     * @return the response bodies in the order of the {@code urls}, or {@code null} if any of them is missing or unusable
+     */
+    private static List<JsonObject> parseBatchResponse(String response, List<String> urls) {
+        JsonObject[] contents = new JsonObject[urls.size()];
+        JsonValue root = Json.parse(response);
+        JsonValue responses = root.isObject() ? root.asObject().get("responses") : null;
+        if (responses == null || !responses.isArray()) {
+            return null;
+        }
+        for (JsonValue item : responses.asArray()) {
+            int index = index(item, contents.length);
+            if (index < 0) {
+                return null;
+            }
+            int status = item.asObject().getInt("httpStatusCode", 0);
+            JsonValue content = item.asObject().get("content");
+            if (status != HTTP_OK) {
+                throw new RestClientException(String.format("Failure executing: GET at: %s. Message: %s", urls.get(index),
+                        content), status);
+            }
+            if (content == null || !content.isObject()) {
+                return null;
+            }
+            contents[index] = content.asObject();
+        }
+        for (JsonObject content : contents) {
+            if (content == null) {
+                return null;
+            }
+        }
+        return Arrays.asList(contents);
+    }
+
+    /**
+     * @return the index of the request which the batch response {@code item} belongs to, or {@code -1} if it is unknown
+     */
+    private static int index(JsonValue item, int size) {
+        if (!item.isObject()) {
+            return -1;
+        }
+        JsonValue name = item.asObject().get("name");
+        if (name == null || !name.isString()) {
+            return -1;
+        }
+        try {
+            int index = Integer.parseInt(name.asString());
+            return index >= 0 && index < size ? index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
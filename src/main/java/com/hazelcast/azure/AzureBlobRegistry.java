@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.hazelcast.azure.Utils.isEmpty;
+import static com.hazelcast.azure.Utils.urlEncode;
+
+/**
+ * Registry of the members in an Azure Storage blob container.
+ * <p>
+ * Each member keeps an empty blob named after its address, whose metadata carries its address, port and zone. The blob is
+ * rewritten a few times per TTL and deleted when the member shuts down. The members are read from one blob listing with the
+ * metadata included, which takes one request for up to 5000 members, and the blobs whose last heartbeat is older than the
+ * TTL are ignored. The age of a blob is its "Last-Modified" time compared with the "Date" of the listing response, both
+ * stamped by the storage service, so the clocks of the members do not need to be in sync.
+ *
+ * @see <a href="https://docs.microsoft.com/en-us/rest/api/storageservices/list-blobs">List Blobs</a>
+ */
+class AzureBlobRegistry {
+    static final String RESOURCE = "https://storage.azure.com/";
+    static final String API_VERSION = "2020-04-08";
+
+    private static final ILogger LOGGER = Logger.getLogger(AzureBlobRegistry.class);
+
+    private static final int HEARTBEATS_PER_TTL = 3;
+    private static final long ACCESS_TOKEN_REUSE_NANOS = TimeUnit.MINUTES.toNanos(4);
+
+    private final String containerUrl;
+    private final long ttlMillis;
+    private final Supplier<String> accessTokenSupplier;
+    private final InetAddressCache inetAddresses = new InetAddressCache();
+
+    private String accessToken;
+    private long accessTokenNanos;
+    private ScheduledExecutorService heartbeats;
+    private String blobName;
+
+    /**
+     * @param containerUrl        the URL of the blob container, e.g. "https://account.blob.core.windows.net/hazelcast"
+     * @param accessTokenSupplier returns a new access token for the {@link #RESOURCE}
+     */
+    AzureBlobRegistry(String containerUrl, int ttlSeconds, Supplier<String> accessTokenSupplier) {
+        this.containerUrl = containerUrl.endsWith("/") ? containerUrl.substring(0, containerUrl.length() - 1) : containerUrl;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.accessTokenSupplier = accessTokenSupplier;
+    }
+
+    /**
+     * Registers the member and keeps its registration alive until {@link #shutdown()}.
+     */
+    synchronized void register(String address, int port, String zone) {
+        if (heartbeats != null) {
+            return;
+        }
+        blobName = String.format("%s-%s", address, port);
+        long periodMillis = Math.max(1, ttlMillis / HEARTBEATS_PER_TTL);
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hz-azure-registry-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleAtFixedRate(() -> heartbeat(address, port, zone), 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void heartbeat(String address, int port, String zone) {
+        try {
+            RestClient restClient = request(blobUrl())
+                    .withHeader("x-ms-blob-type", "BlockBlob")
+                    .withHeader("x-ms-meta-address", address)
+                    .withHeader("x-ms-meta-port", String.valueOf(port))
+                    .withBody("");
+            if (!isEmpty(zone)) {
+                restClient.withHeader("x-ms-meta-zone", zone);
+            }
+            restClient.put();
+        } catch (Exception e) {
+            LOGGER.warning(String.format("Cannot register the member in %s", containerUrl), e);
+        }
+    }
+
+    /**
+     * Returns the addresses of the members whose heartbeat is not older than the TTL.
+     *
+     * @throws RestClientException if the blobs cannot be listed
+     */
+    synchronized Collection<AzureAddress> addresses() {
+        Set<AzureAddress> result = new LinkedHashSet<AzureAddress>();
+        String marker = null;
+        do {
+            String url = String.format("%s?restype=container&comp=list&include=metadata%s", containerUrl,
+                    marker == null ? "" : "&marker=" + urlEncode(marker));
+            RestClient restClient = request(url);
+            Element listing = parse(restClient.get());
+            long oldestHeartbeat = serverTimeMillis(restClient.getResponseDate()) - ttlMillis;
+            NodeList blobs = listing.getElementsByTagName("Blob");
+            for (int i = 0; i < blobs.getLength(); i++) {
+                AzureAddress address = parseBlob((Element) blobs.item(i), oldestHeartbeat);
+                if (address != null) {
+                    result.add(address);
+                }
+            }
+            marker = text(listing, "NextMarker");
+        } while (!isEmpty(marker));
+        inetAddresses.nextRound();
+        return new ArrayList<AzureAddress>(result);
+    }
+
+    /**
+     * Stops the heartbeats and deletes the registration of the member.
+     */
+    synchronized void shutdown() {
+        if (heartbeats == null) {
+            return;
+        }
+        heartbeats.shutdownNow();
+        heartbeats = null;
+        try {
+            request(blobUrl()).delete();
+        } catch (Exception e) {
+            LOGGER.fine(String.format("Cannot delete the registration of the member from %s", containerUrl), e);
+        }
+    }
+
+    private String blobUrl() {
+        return String.format("%s/%s", containerUrl, urlEncode(blobName));
+    }
+
+    /**
+     * Returns the time of the storage service from the "Date" header of its response, or the local time if it is missing.
+     */
+    private static long serverTimeMillis(String date) {
+        if (!isEmpty(date)) {
+            try {
+                return parseHttpDate(date);
+            } catch (DateTimeParseException e) {
+                LOGGER.finest(String.format("Invalid Date header: %s", date), e);
+            }
+        }
+        return System.currentTimeMillis();
+    }
+
+    private static long parseHttpDate(String date) {
+        return ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    }
+
+    private RestClient request(String url) {
+        return RestClient.create(url)
+                         .withHeader("Authorization", String.format("Bearer %s", accessToken()))
+                         .withHeader("x-ms-version", API_VERSION);
+    }
+
+    private synchronized String accessToken() {
+        if (accessToken == null || System.nanoTime() - accessTokenNanos > ACCESS_TOKEN_REUSE_NANOS) {
+            accessToken = accessTokenSupplier.get();
+            accessTokenNanos = System.nanoTime();
+        }
+        return accessToken;
+    }
+
+    private AzureAddress parseBlob(Element blob, long oldestHeartbeat) {
+        NodeList metadataElements = blob.getElementsByTagName("Metadata");
+        if (metadataElements.getLength() == 0) {
+            return null;
+        }
+        Element metadata = (Element) metadataElements.item(0);
+        String address = text(metadata, "address");
+        String port = text(metadata, "port");
+        NodeList propertiesElements = blob.getElementsByTagName("Properties");
+        String lastModified = propertiesElements.getLength() == 0 ? null
+                : text((Element) propertiesElements.item(0), "Last-Modified");
+        if (isEmpty(address) || isEmpty(port) || isEmpty(lastModified)) {
+            return null;
+        }
+        try {
+            if (parseHttpDate(lastModified) < oldestHeartbeat) {
+                return null;
+            }
+            return new AzureAddress(inetAddresses.get(address), null, Integer.parseInt(port), null, text(metadata, "zone"), null);
+        } catch (RuntimeException e) {
+            LOGGER.finest(String.format("Ignoring invalid registration: %s", address), e);
+            return null;
+        }
+    }
+
+    private static String text(Element parent, String tagName) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && tagName.equalsIgnoreCase(child.getNodeName())) {
+                return child.getTextContent().trim();
+            }
+        }
+        return null;
+    }
+
+    private static Element parse(String xml) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Document document = builder.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+            return document.getDocumentElement();
+        } catch (Exception e) {
+            throw new RestClientException("Cannot parse the blob listing", e);
+        }
+    }
+}
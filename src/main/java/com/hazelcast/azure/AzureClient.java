@@ -15,42 +15,160 @@
 
 package com.hazelcast.azure;
 
+import com.hazelcast.core.HazelcastException;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.logging.Logger;
 
 import static com.hazelcast.azure.Utils.isEmpty;
 
 /**
  * Responsible for fetching the discovery information from Azure APIs.
+ * <p>
+ * The instances are discovered in the scope (subscription, resource group and scale set) of the current VM or of the
+ * configuration, and in the configured additional scopes. Multiple scopes are queried in parallel, so that a discovery round
+ * takes about as long as the slowest scope.
+ * <p>
+ * The scale sets of the scope of the current VM can be replaced by a list of scale set names and patterns. The scale sets
+ * matching the patterns are listed in every discovery round, and each matching scale set is queried as a separate scope.
+ * <p>
+ * If a DNS name or a registry container is configured, the sources are queried as a {@link DiscoveryChain}: the DNS name
+ * first, then the registry and the Azure API last, each one started when the previous one has no members or exceeds its
+ * latency budget.
+ * <p>
+ * If an Event Grid receiver is configured, the instances listed with the Azure API are reused until an event reports a change
+ * of the discovered resources, or until the reconciliation interval elapses.
  */
 class AzureClient {
     private static final Logger LOGGER = Logger.getLogger(AzureClient.class.getSimpleName());
 
-    private static final int RETRIES = 2;
+    private static final long ACCESS_TOKEN_REUSE_NANOS = TimeUnit.MINUTES.toNanos(4);
+    private static final int HTTP_UNAUTHORIZED = 401;
+    private static final long AZURE_API_REFRESH_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final String SPOT_PRIORITY = "Spot";
+    private static final String LOW_PRIORITY = "Low";
+    private static final String REGULAR_PRIORITY = "Regular";
 
     private final AzureMetadataApi azureMetadataApi;
-    private final AzureComputeApi azureComputeApi;
     private final AzureAuthenticator azureAuthenticator;
 
     private final AzureConfig azureConfig;
-    private final Tag tag;
+    private final TagFilter tag;
+    private final Supplier<AzureComputeApi> azureComputeApiFactory;
+    private final Map<AzureScope, AzureComputeApi> scopes = new LinkedHashMap<AzureScope, AzureComputeApi>();
+    private final List<Pattern> scaleSetPatterns = new ArrayList<Pattern>();
+    private final AzureScope scaleSetPatternScope;
+    private final AzureComputeApi scaleSetLister;
+    private final ExecutorService executor;
+    private final AzureDnsApi dnsApi;
+    private final AzureBlobRegistry registry;
+    private final DiscoveryChain chain;
+    private final AzureEventReceiver eventReceiver;
+    private final long reconciliationNanos;
 
-    private String subscriptionId;
-    private String resourceGroup;
-    private String scaleSet;
+    private Map<AzureScope, AzureComputeApi> matchedScaleSets = new LinkedHashMap<AzureScope, AzureComputeApi>();
+
+    private String accessToken;
+    private long accessTokenFetchedNanos;
+
+    private volatile boolean resourcesChanged = true;
+    private volatile Collection<AzureAddress> listedAddresses;
+    private volatile long listedNanos;
 
     AzureClient(AzureMetadataApi azureMetadataApi, AzureComputeApi azureComputeApi,
                 AzureAuthenticator azureAuthenticator, AzureConfig azureConfig) {
+        this(azureMetadataApi, () -> azureComputeApi, azureAuthenticator, azureConfig);
+    }
+
+    /**
+     * @param azureComputeApiFactory creates the {@link AzureComputeApi} of each scope
+     */
+    AzureClient(AzureMetadataApi azureMetadataApi, Supplier<AzureComputeApi> azureComputeApiFactory,
+                AzureAuthenticator azureAuthenticator, AzureConfig azureConfig) {
         this.azureMetadataApi = azureMetadataApi;
-        this.azureComputeApi = azureComputeApi;
         this.azureAuthenticator = azureAuthenticator;
         this.azureConfig = azureConfig;
+        this.azureComputeApiFactory = azureComputeApiFactory;
 
-        this.subscriptionId = subscriptionIdFromConfigOrMetadataApi();
-        this.resourceGroup = resourceGroupFromConfigOrMetadataApi();
-        this.scaleSet = scaleSetFromConfigOrMetadataApi();
+        String subscriptionId = subscriptionIdFromConfigOrMetadataApi();
+        String resourceGroup = resourceGroupFromConfigOrMetadataApi();
+        addScopes(subscriptionId, resourceGroup);
         this.tag = azureConfig.getTag();
+        this.dnsApi = isEmpty(azureConfig.getDnsName()) ? null
+                : new AzureDnsApi(azureConfig.getDnsName(), azureConfig.getDnsServer());
+        this.registry = isEmpty(azureConfig.getRegistryContainerUrl()) ? null
+                : new AzureBlobRegistry(azureConfig.getRegistryContainerUrl(), azureConfig.getRegistryTtlSeconds(),
+                this::storageAccessToken);
+        this.chain = newChain();
+        this.reconciliationNanos = TimeUnit.SECONDS.toNanos(azureConfig.getEventGridReconciliationSeconds());
+        this.eventReceiver = azureConfig.getEventGridPort() == null ? null
+                : new AzureEventReceiver(azureConfig.getEventGridPort(), this::resourceChanged);
+        boolean patterns = !scaleSetPatterns.isEmpty();
+        this.scaleSetPatternScope = patterns ? new AzureScope(subscriptionId, resourceGroup, null) : null;
+        this.scaleSetLister = patterns ? azureComputeApiFactory.get() : null;
+        this.executor = scopes.size() > 1 || patterns ? newExecutor(azureConfig.getScopeParallelism()) : null;
+    }
+
+    private void addScopes(String subscriptionId, String resourceGroup) {
+        if (azureConfig.getScaleSets().isEmpty()) {
+            addScope(new AzureScope(subscriptionId, resourceGroup, scaleSetFromConfigOrMetadataApi()));
+        }
+        for (String scaleSet : azureConfig.getScaleSets()) {
+            if (scaleSet.contains("*") || scaleSet.contains("?")) {
+                scaleSetPatterns.add(globPattern(scaleSet));
+            } else {
+                addScope(new AzureScope(subscriptionId, resourceGroup, scaleSet));
+            }
+        }
+        for (AzureScope additionalScope : azureConfig.getAdditionalScopes()) {
+            addScope(additionalScope);
+        }
+    }
+
+    private void addScope(AzureScope scope) {
+        if (!scopes.containsKey(scope)) {
+            scopes.put(scope, azureComputeApiFactory.get());
+        }
+    }
+
+    /**
+     * Converts a pattern with the {@code *} and {@code ?} wildcards into a case-insensitive regular expression, since Azure
+     * resource names are case-insensitive.
+     */
+    private static Pattern globPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "hz.azure.AzureClient");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private String subscriptionIdFromConfigOrMetadataApi() {
@@ -58,7 +176,7 @@ class AzureClient {
             return azureConfig.getSubscriptionId();
         }
         LOGGER.finest("Property 'subscriptionId' not configured, fetching from the VM metadata service");
-        return RetryUtils.retry(() -> azureMetadataApi.subscriptionId(), RETRIES);
+        return RetryUtils.retry(() -> azureMetadataApi.subscriptionId(), RetryPolicy.metadata());
     }
 
     private String resourceGroupFromConfigOrMetadataApi() {
@@ -66,7 +184,7 @@ class AzureClient {
             return azureConfig.getResourceGroup();
         }
         LOGGER.finest("Property 'resourceGroup' not configured, fetching from the VM metadata service");
-        return RetryUtils.retry(() -> azureMetadataApi.resourceGroupName(), RETRIES);
+        return RetryUtils.retry(() -> azureMetadataApi.resourceGroupName(), RetryPolicy.metadata());
     }
 
     private String scaleSetFromConfigOrMetadataApi() {
@@ -74,22 +192,217 @@ class AzureClient {
             return azureConfig.getScaleSet();
         }
         LOGGER.finest("Property 'scaleSet' not configured, fetching from the VM metadata service");
-        return RetryUtils.retry(() -> azureMetadataApi.scaleSet(), RETRIES);
+        return RetryUtils.retry(() -> azureMetadataApi.scaleSet(), RetryPolicy.metadata());
+    }
+
+    private DiscoveryChain newChain() {
+        List<DiscoveryChain.Backend> backends = new ArrayList<DiscoveryChain.Backend>();
+        if (dnsApi != null) {
+            String dnsName = azureConfig.getDnsName();
+            backends.add(new DiscoveryChain.Backend(dnsName, () -> addressesOrEmpty(dnsName, dnsApi::addresses),
+                    azureConfig.getDnsBudgetMillis()));
+        }
+        if (registry != null) {
+            String containerUrl = azureConfig.getRegistryContainerUrl();
+            backends.add(new DiscoveryChain.Backend(containerUrl, () -> addressesOrEmpty(containerUrl, registry::addresses),
+                    azureConfig.getRegistryBudgetMillis()));
+        }
+        backends.add(new DiscoveryChain.Backend("the Azure API", this::azureApiAddresses, 0));
+        return new DiscoveryChain(backends, AZURE_API_REFRESH_NANOS);
     }
 
     Collection<AzureAddress> getAddresses() {
-        LOGGER.finest("Fetching OAuth Access Token");
-        final String accessToken = fetchAccessToken();
+        return chain.addresses();
+    }
+
+    /**
+     * Returns the instances listed with the Azure API, which are reused if the Event Grid events reported no change since.
+     */
+    private Collection<AzureAddress> azureApiAddresses() {
+        if (eventReceiver == null) {
+            return listAzureApiAddresses();
+        }
+        Collection<AzureAddress> addresses = listedAddresses;
+        if (!resourcesChanged && addresses != null && System.nanoTime() - listedNanos < reconciliationNanos) {
+            return addresses;
+        }
+        resourcesChanged = false;
+        try {
+            addresses = listAzureApiAddresses();
+        } catch (RuntimeException e) {
+            resourcesChanged = true;
+            throw e;
+        }
+        listedAddresses = addresses;
+        listedNanos = System.nanoTime();
+        return addresses;
+    }
+
+    /**
+     * Called by the Event Grid receiver when a discovered resource is written, deleted or changed.
+     */
+    void resourceChanged(String resourceId) {
+        LOGGER.finest(String.format("Resource changed: %s", resourceId));
+        resourcesChanged = true;
+    }
+
+    private Collection<AzureAddress> listAzureApiAddresses() {
+        String token = accessToken();
+        try {
+            Map<AzureScope, AzureComputeApi> currentScopes = currentScopes(token);
+            if (currentScopes.size() == 1) {
+                Map.Entry<AzureScope, AzureComputeApi> scope = currentScopes.entrySet().iterator().next();
+                return instances(scope.getKey(), scope.getValue(), token);
+            }
+            return instancesInParallel(currentScopes, token);
+        } catch (RestClientException e) {
+            if (e.getHttpErrorCode() == HTTP_UNAUTHORIZED) {
+                forgetAccessToken();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches the addresses from the DNS name or from the registry, and reports a failure as no members, so that the next
+     * source of the chain is queried.
+     */
+    private Collection<AzureAddress> addressesOrEmpty(String source, Supplier<Collection<AzureAddress>> addresses) {
+        try {
+            Collection<AzureAddress> result = addresses.get();
+            if (result.isEmpty()) {
+                LOGGER.fine(String.format("No members in %s", source));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            LOGGER.warning(String.format("Cannot discover members in %s: %s", source, e));
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Registers the member in the registry, if configured.
+     */
+    void register(String host, int port) {
+        if (registry != null) {
+            registry.register(host, port, getAvailabilityZone());
+        }
+    }
+
+    /**
+     * Returns the configured scopes and the scale sets which currently match the scale set patterns.
+     */
+    private Map<AzureScope, AzureComputeApi> currentScopes(String token) {
+        if (scaleSetPatterns.isEmpty()) {
+            return scopes;
+        }
+        List<String> scaleSets = RetryUtils.retry(() -> scaleSetLister.scaleSets(scaleSetPatternScope.getSubscriptionId(),
+                scaleSetPatternScope.getResourceGroup(), token), RetryPolicy.list());
+        Map<AzureScope, AzureComputeApi> matched = new LinkedHashMap<AzureScope, AzureComputeApi>();
+        for (String scaleSet : scaleSets) {
+            AzureScope scope = new AzureScope(scaleSetPatternScope.getSubscriptionId(),
+                    scaleSetPatternScope.getResourceGroup(), scaleSet);
+            if (matchesScaleSetPattern(scaleSet) && !scopes.containsKey(scope)) {
+                AzureComputeApi azureComputeApi = matchedScaleSets.get(scope);
+                matched.put(scope, azureComputeApi != null ? azureComputeApi : azureComputeApiFactory.get());
+            }
+        }
+        matchedScaleSets = matched;
+        Map<AzureScope, AzureComputeApi> result = new LinkedHashMap<AzureScope, AzureComputeApi>(scopes);
+        result.putAll(matched);
+        return result;
+    }
+
+    private boolean matchesScaleSetPattern(String scaleSet) {
+        for (Pattern pattern : scaleSetPatterns) {
+            if (pattern.matcher(scaleSet).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Collection<AzureAddress> instances(AzureScope scope, AzureComputeApi azureComputeApi, String token) {
         LOGGER.finest(String.format("Fetching instances for subscription '%s' and resourceGroup '%s'",
-                subscriptionId, resourceGroup));
-        Collection<AzureAddress> addresses = azureComputeApi.instances(subscriptionId, resourceGroup,
-                scaleSet, tag, accessToken);
+                scope.getSubscriptionId(), scope.getResourceGroup()));
+        Collection<AzureAddress> addresses = RetryUtils.retry(() -> azureComputeApi.instances(scope.getSubscriptionId(),
+                scope.getResourceGroup(), scope.getScaleSet(), tag, token), RetryPolicy.list());
         LOGGER.finest(String.format("Found the following instances for project '%s' and zone '%s': %s",
-                subscriptionId, resourceGroup,
+                scope.getSubscriptionId(), scope.getResourceGroup(),
                 addresses));
         return addresses;
     }
 
+    /**
+     * Queries all scopes in parallel and merges their instances. The scopes which fail are skipped, unless all of them fail.
+     */
+    private Collection<AzureAddress> instancesInParallel(Map<AzureScope, AzureComputeApi> currentScopes, String token) {
+        if (currentScopes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<AzureScope, Future<Collection<AzureAddress>>> futures =
+                new LinkedHashMap<AzureScope, Future<Collection<AzureAddress>>>();
+        for (Map.Entry<AzureScope, AzureComputeApi> scope : currentScopes.entrySet()) {
+            futures.put(scope.getKey(), executor.submit(() -> instances(scope.getKey(), scope.getValue(), token)));
+        }
+        Set<AzureAddress> addresses = new LinkedHashSet<AzureAddress>();
+        RuntimeException failure = null;
+        int failures = 0;
+        for (Map.Entry<AzureScope, Future<Collection<AzureAddress>>> future : futures.entrySet()) {
+            try {
+                addresses.addAll(future.getValue().get());
+            } catch (ExecutionException e) {
+                failures++;
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause() : new HazelcastException(e.getCause());
+                }
+                LOGGER.warning(String.format("Cannot discover instances in %s: %s", future.getKey(), e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HazelcastException(e);
+            }
+        }
+        if (failures == futures.size()) {
+            throw failure;
+        }
+        return new ArrayList<AzureAddress>(addresses);
+    }
+
+    /**
+     * Returns the access token, which is reused for a few minutes, since all the scopes and discovery rounds use the same
+     * tenant. Access tokens are valid for at least 5 minutes.
+     */
+    private synchronized String accessToken() {
+        if (accessToken == null || System.nanoTime() - accessTokenFetchedNanos > ACCESS_TOKEN_REUSE_NANOS) {
+            LOGGER.finest("Fetching OAuth Access Token");
+            accessToken = RetryUtils.retry(this::fetchAccessToken, RetryPolicy.token());
+            accessTokenFetchedNanos = System.nanoTime();
+        }
+        return accessToken;
+    }
+
+    private synchronized void forgetAccessToken() {
+        accessToken = null;
+    }
+
+    /**
+     * Stops the threads which query multiple scopes or sources in parallel and the Event Grid receiver, and removes the member
+     * from the registry.
+     */
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        chain.shutdown();
+        if (eventReceiver != null) {
+            eventReceiver.shutdown();
+        }
+        if (registry != null) {
+            registry.shutdown();
+        }
+    }
+
     private String fetchAccessToken() {
         if (azureConfig.isInstanceMetadataAvailable()) {
             return azureMetadataApi.accessToken();
@@ -99,6 +412,19 @@ class AzureClient {
         }
     }
 
+    /**
+     * Returns a new access token for Azure Storage, which has a different audience than the token for the Azure API.
+     */
+    private String storageAccessToken() {
+        return RetryUtils.retry(() -> {
+            if (azureConfig.isInstanceMetadataAvailable()) {
+                return azureMetadataApi.accessToken(AzureBlobRegistry.RESOURCE);
+            }
+            return azureAuthenticator.refreshAccessToken(azureConfig.getTenantId(), azureConfig.getClientId(),
+                    azureConfig.getClientSecret(), AzureBlobRegistry.RESOURCE);
+        }, RetryPolicy.token());
+    }
+
     /**
      * This method creates an availability zone string by joining Azure Location and Zone properties because availability zones
      * are defined in locations in Azure environment.
@@ -115,4 +441,44 @@ class AzureClient {
             return String.format("%s-%s", azureMetadataApi.location(), zone);
         }
     }
+
+    String getFaultDomain() {
+        return azureMetadataApi.faultDomain();
+    }
+
+    String getUpdateDomain() {
+        return azureMetadataApi.updateDomain();
+    }
+
+    String getPriority() {
+        return azureMetadataApi.priority();
+    }
+
+    /**
+     * Returns the placement of the VM for the {@code PLACEMENT_AWARE} partition grouping. In regions without availability
+     * zones, this is the fault domain and the update domain in "FAULT_DOMAIN-UPDATE_DOMAIN" format. Only the combination is
+     * guaranteed to differ between a primary and its backups, so a backup may share the fault domain of its primary: the
+     * fault domain separation of the zone key is traded for the separation from the members updated together. In zonal
+     * regions, the platform updates are rolled out
+     * one zone at a time, so this is the availability zone as returned by {@link #getAvailabilityZone()}.
+     * <p>
+     * With {@link AzureConfig#isSpotAwarePlacement()}, this is "Spot" for the VMs which can be evicted and "Regular" for all
+     * other VMs, so that the backups of the partitions owned on Spot VMs are kept on regular priority VMs.
+     */
+    String getPlacement() {
+        if (azureConfig.isSpotAwarePlacement()) {
+            String priority = azureMetadataApi.priority();
+            return SPOT_PRIORITY.equalsIgnoreCase(priority) || LOW_PRIORITY.equalsIgnoreCase(priority)
+                    ? SPOT_PRIORITY : REGULAR_PRIORITY;
+        }
+        String zone = azureMetadataApi.availabilityZone();
+        if (!isEmpty(zone)) {
+            return String.format("%s-%s", azureMetadataApi.location(), zone);
+        }
+        String updateDomain = azureMetadataApi.updateDomain();
+        if (isEmpty(updateDomain)) {
+            return azureMetadataApi.faultDomain();
+        }
+        return String.format("%s-%s", azureMetadataApi.faultDomain(), updateDomain);
+    }
 }
@@ -19,64 +19,496 @@ import com.hazelcast.internal.json.Json;
 import com.hazelcast.internal.json.JsonArray;
 import com.hazelcast.internal.json.JsonObject;
 import com.hazelcast.internal.json.JsonValue;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
 
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.hazelcast.azure.Utils.isEmpty;
+import static com.hazelcast.azure.Utils.networkInterfaceId;
+import static com.hazelcast.azure.Utils.urlEncode;
 
 /**
  * Responsible for connecting to the Azure Cloud Compute API.
+ * <p>
+ * The network interfaces of a scale set with Uniform orchestration are listed with the scale set network interfaces API.
+ * This API is not available for scale sets with Flexible orchestration, so their member VMs are listed with a filter on the
+ * scale set and only the network interfaces of these VMs are fetched.
+ * <p>
+ * If a load balancer backend pool is configured, only the network interfaces of the IP configurations in the pool are
+ * fetched, regardless of the scale set. If a subnet is configured, the private IP addresses are read from the IP
+ * configurations of the subnet, and the network interfaces are fetched only if they are needed for the tag filter.
+ * <p>
+ * The addresses carry the ID, the zone and the fault domain of their VMs, see {@link AzureVirtualMachineApi}.
  *
  * @see <a href="https://docs.microsoft.com/en-us/rest/api/compute/">Azure Compute API</a>
  */
 class AzureComputeApi {
     static final String API_VERSION = "2018-08-01";
     static final String API_VERSION_SCALE_SET = "2018-06-01";
+    static final String API_VERSION_FLEXIBLE = "2021-11-01";
+    static final String API_VERSION_SUBNET = "2020-06-01";
     private static final String AZURE_API_ENDPOINT = "https://management.azure.com";
+    private static final String EXPAND_PUBLIC_IP = "&$expand=ipConfigurations/publicIPAddress";
+    private static final int HTTP_BAD_REQUEST = 400;
+
+    private static final ILogger LOGGER = Logger.getLogger(AzureComputeApi.class);
 
     private final String endpoint;
+    private final boolean publicIpLookup;
+    private final long publicIpRefreshNanos;
+    private final AzureBatchApi batchApi;
+    private final StringInterner interner = new StringInterner();
+    private final InetAddressCache inetAddresses = new InetAddressCache();
+    private volatile boolean expandPublicIps = true;
+
+    private final ConditionalGet privateIpGet;
+    private final ConditionalGet publicIpGet;
+    private final ConditionalGet scaleSetGet = new ConditionalGet();
+    private List<String> scaleSetNames;
+
+    private final Map<String, Boolean> flexibleScaleSets = new HashMap<String, Boolean>();
+    private final ConditionalGet flexibleVmGet;
+    private final AzureLoadBalancerApi loadBalancerApi;
+    private final AzureVirtualMachineApi virtualMachineApi;
+    private final String subnet;
+    private final ConditionalGet subnetGet;
+    private Set<String> subnetIpConfigurationIds;
+    private AzureLoadBalancerApi.BackendPool backendPool;
+    private JsonObject backendPoolNics;
+
+    private final AzureNetworkInterfaceApi networkInterfaceApi;
+
+    private Map<InetAddress, AzureNetworkInterface> networkInterfaces;
+    private String publicIpUrl;
+    private Map<String, InetAddress> publicIps;
+    private long publicIpsListedNanos;
+    private Collection<AzureAddress> addresses;
+    private Collection<AzureAddress> placedFrom;
+    private Collection<AzureAddress> placedAddresses;
 
-    AzureComputeApi() {
-        this.endpoint = AZURE_API_ENDPOINT;
+    /**
+     * @param hedger hedges the requests, shared by all the scopes so that its latency percentile and its budget apply to all
+     *               the requests to Azure Resource Manager, or {@code null} if they should not be hedged
+     */
+    AzureComputeApi(AzureConfig azureConfig, RequestHedger hedger) {
+        this(AZURE_API_ENDPOINT, azureConfig, hedger);
     }
 
     /**
      * For test purposes only.
      */
     AzureComputeApi(String endpoint) {
+        this(endpoint, AzureConfig.builder().setPublicIpLookup(true).build());
+    }
+
+    /**
+     * For test purposes only.
+     */
+    AzureComputeApi(String endpoint, AzureConfig azureConfig) {
+        this(endpoint, azureConfig, null);
+    }
+
+    private AzureComputeApi(String endpoint, AzureConfig azureConfig, RequestHedger hedger) {
         this.endpoint = endpoint;
+        this.publicIpLookup = azureConfig.isPublicIpLookup();
+        this.publicIpRefreshNanos = TimeUnit.SECONDS.toNanos(azureConfig.getPublicIpRefreshSeconds());
+        this.batchApi = azureConfig.isArmBatch() ? new AzureBatchApi(endpoint) : null;
+        this.privateIpGet = new ConditionalGet(hedger);
+        this.publicIpGet = new ConditionalGet(hedger);
+        this.flexibleVmGet = new ConditionalGet(hedger);
+        this.subnet = azureConfig.getSubnet();
+        this.subnetGet = new ConditionalGet(hedger);
+        this.virtualMachineApi = new AzureVirtualMachineApi(endpoint, hedger);
+        this.networkInterfaceApi = new AzureNetworkInterfaceApi(endpoint, publicIpLookup, hedger);
+        this.loadBalancerApi = isEmpty(azureConfig.getLoadBalancer()) ? null
+                : new AzureLoadBalancerApi(endpoint, azureConfig.getLoadBalancer(), azureConfig.getBackendPool(), hedger);
     }
 
-    Collection<AzureAddress> instances(String subscriptionId, String resourceGroup, String scaleSet,
-                                       Tag tag, String accessToken) {
-        String privateIpResponse = RestClient
-                .create(urlForPrivateIpList(subscriptionId, resourceGroup, scaleSet))
-                .withHeader("Authorization", String.format("Bearer %s", accessToken))
-                .get();
+    /**
+     * Returns the addresses of the instances. When neither the network interfaces nor the needed public IP addresses changed
+     * since the previous call, the responses are not parsed and the previously returned addresses are returned again.
+     */
+    synchronized Collection<AzureAddress> instances(String subscriptionId, String resourceGroup, String scaleSet,
+                                                    TagFilter tag, String accessToken) {
+        try {
+            Collection<AzureAddress> listed = listAddresses(subscriptionId, resourceGroup, scaleSet, tag, accessToken);
+            if (listed != placedFrom) {
+                placedAddresses = virtualMachineApi.place(listed, accessToken);
+                placedFrom = listed;
+            }
+            return placedAddresses;
+        } catch (RuntimeException e) {
+            forgetResponses();
+            throw e;
+        }
+    }
 
-        Map<String, AzureNetworkInterface> networkInterfaces = parsePrivateIpResponse(privateIpResponse);
+    private Collection<AzureAddress> listAddresses(String subscriptionId, String resourceGroup, String scaleSet,
+                                                   TagFilter tag, String accessToken) {
+        if (!isEmpty(subnet)) {
+            return listSubnetInstances(subscriptionId, resourceGroup, tag, accessToken);
+        }
+        if (loadBalancerApi != null) {
+            return listBackendPoolInstances(subscriptionId, resourceGroup, tag, accessToken);
+        }
+        if (!isEmpty(scaleSet) && isFlexible(subscriptionId, resourceGroup, scaleSet, accessToken)) {
+            boolean changed = updateNetworkInterfaces(
+                    flexibleNetworkInterfaces(subscriptionId, resourceGroup, scaleSet, accessToken), tag);
+            return joinPublicIps(changed, urlForPublicIpList(subscriptionId, resourceGroup, null), null, accessToken);
+        }
+        return listInstances(urlForPrivateIpList(subscriptionId, resourceGroup, scaleSet),
+                urlForPublicIpList(subscriptionId, resourceGroup, scaleSet), scaleSet, tag, accessToken);
+    }
 
-        String publicIpResponse = RestClient
-                .create(urlForPublicIpList(subscriptionId, resourceGroup, scaleSet))
-                .withHeader("Authorization", String.format("Bearer %s", accessToken))
-                .get();
+    /**
+     * Lists the instances in the load balancer backend pool. The network interfaces of the load balancer are listed with one
+     * request and filtered by the IP configurations in the pool, and the addresses of an IP-based pool are used as they are.
+     */
+    private Collection<AzureAddress> listBackendPoolInstances(String subscriptionId, String resourceGroup, TagFilter tag,
+                                                              String accessToken) {
+        AzureLoadBalancerApi.BackendPool pool = loadBalancerApi.backendPool(subscriptionId, resourceGroup, accessToken);
+        boolean changed = pool != null;
+        if (pool != null) {
+            backendPool = pool;
+        }
+        if (!backendPool.getIpConfigurationIds().isEmpty()) {
+            JsonObject response = loadBalancerApi.networkInterfaces(subscriptionId, resourceGroup, accessToken);
+            if (response != null) {
+                backendPoolNics = response;
+                changed = true;
+            }
+        }
+        if (changed) {
+            networkInterfaces = backendPoolNics == null ? new LinkedHashMap<InetAddress, AzureNetworkInterface>()
+                    : parsePrivateIpResponse(backendPoolNics, tag, backendPool.getIpConfigurationIds());
+            for (String ipAddress : backendPool.getIpAddresses()) {
+                InetAddress privateAddress = inetAddresses.get(ipAddress);
+                networkInterfaces.put(privateAddress, new AzureNetworkInterface(privateAddress, null, null));
+            }
+        }
+        return joinPublicIps(changed, urlForPublicIpList(subscriptionId, resourceGroup, null), null, accessToken);
+    }
 
-        Map<String, String> publicIpMap = parsePublicIpResponse(publicIpResponse);
+    /**
+     * Lists the instances with IP configurations in the subnet. The subnet carries the private IP addresses and the
+     * references to the public IP addresses, so the network interfaces are fetched only if the tag filter needs their tags.
+     */
+    private Collection<AzureAddress> listSubnetInstances(String subscriptionId, String resourceGroup, TagFilter tag,
+                                                         String accessToken) {
+        JsonObject response = subnetGet.get(urlForSubnet(subscriptionId, resourceGroup), accessToken);
+        JsonArray ipConfigurations = response == null ? null
+                : toJsonArray(toJsonObject(response.get("properties")).get("ipConfigurations"));
+        boolean changed = ipConfigurations != null;
+        if (tag != null) {
+            Set<String> nicIds = null;
+            if (ipConfigurations != null) {
+                nicIds = new LinkedHashSet<String>();
+                subnetIpConfigurationIds = new HashSet<String>();
+                for (JsonValue ipConfiguration : ipConfigurations) {
+                    String id = ipConfiguration.asObject().getString("id", null);
+                    String nicId = networkInterfaceId(id);
+                    if (nicId != null) {
+                        nicIds.add(nicId);
+                        subnetIpConfigurationIds.add(id.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            JsonObject nicResponse = networkInterfaceApi.get(nicIds, accessToken);
+            changed = nicResponse != null;
+            if (changed) {
+                networkInterfaces = parsePrivateIpResponse(nicResponse, tag, subnetIpConfigurationIds);
+            }
+        } else if (changed) {
+            networkInterfaces = parseSubnetIpConfigurations(ipConfigurations);
+        }
+        return joinPublicIps(changed, urlForPublicIpList(subscriptionId, resourceGroup, null), null, accessToken);
+    }
 
-        Set<AzureAddress> addresses = new LinkedHashSet<AzureAddress>(networkInterfaces.size());
+    private Map<InetAddress, AzureNetworkInterface> parseSubnetIpConfigurations(JsonArray ipConfigurations) {
+        Map<InetAddress, AzureNetworkInterface> interfaces = new LinkedHashMap<InetAddress, AzureNetworkInterface>();
+        for (JsonValue ipConfiguration : ipConfigurations) {
+            if (networkInterfaceId(ipConfiguration.asObject().getString("id", null)) == null) {
+                // the subnet lists also the IP configurations of load balancers, gateways and other resources
+                continue;
+            }
+            JsonObject ipProps = toJsonObject(ipConfiguration.asObject().get("properties"));
+            String privateIp = ipProps.getString("privateIPAddress", null);
+            if (!isEmpty(privateIp)) {
+                InetAddress privateAddress = inetAddresses.get(privateIp);
+                interfaces.put(privateAddress,
+                        networkInterface(privateAddress, toJsonObject(ipProps.get("publicIPAddress")), null));
+            }
+        }
+        return interfaces;
+    }
+
+    /**
+     * The {@code subnet} is either "virtual-network/subnet" in the resource group of the scope, or a full subnet ID.
+     */
+    private String urlForSubnet(String subscriptionId, String resourceGroup) {
+        String subnetId = subnet.startsWith("/") ? subnet
+                : String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/virtualNetworks/%s",
+                        subscriptionId, resourceGroup, subnet.replaceFirst("/", "/subnets/"));
+        return String.format("%s%s?api-version=%s&$expand=ipConfigurations", endpoint, subnetId, API_VERSION_SUBNET);
+    }
+
+    private Collection<AzureAddress> listInstances(String privateIpUrl, String publicIpUrl, String scaleSet, TagFilter tag,
+                                                   String accessToken) {
+        List<JsonObject> batchResponses = null;
+        if (batchPublicIps(scaleSet, publicIpUrl)) {
+            batchResponses = batchApi.get(Arrays.asList(privateIpUrl, publicIpUrl), accessToken);
+        }
 
+        boolean changed;
+        if (batchResponses != null) {
+            privateIpGet.reset();
+            publicIpGet.reset();
+            changed = updateNetworkInterfaces(batchResponses.get(0), tag);
+        } else {
+            if (batchApi != null) {
+                batchApi.reset();
+            }
+            changed = updateNetworkInterfaces(privateIpResponse(privateIpUrl, scaleSet, accessToken), tag);
+        }
+        return joinPublicIps(changed, publicIpUrl, batchResponses, accessToken);
+    }
+
+    /**
+     * Joins the network interfaces with the public IP addresses, unless neither of them changed.
+     */
+    private Collection<AzureAddress> joinPublicIps(boolean changed, String publicIpUrl, List<JsonObject> batchResponses,
+                                                   String accessToken) {
+        Map<String, InetAddress> publicIpMap = Collections.emptyMap();
+        boolean publicIpsChanged = false;
+        if (hasPublicIpIds(networkInterfaces.values())) {
+            publicIpsChanged = batchResponses != null
+                    ? updatePublicIps(publicIpUrl, batchResponses.get(1))
+                    : refreshPublicIps(publicIpUrl, accessToken);
+            publicIpMap = publicIps;
+        }
+        if (!changed && !publicIpsChanged) {
+            return addresses;
+        }
+
+        Set<AzureAddress> result = new LinkedHashSet<AzureAddress>(networkInterfaces.size());
         for (AzureNetworkInterface anInterface : networkInterfaces.values()) {
-            if (tag == null || anInterface.hasTag(tag)) {
-                addresses.add(new AzureAddress(anInterface.getPrivateIp(), publicIpMap.get(anInterface.getPublicIpId())));
+            InetAddress publicIp = anInterface.getPublicIp() != null
+                    ? anInterface.getPublicIp()
+                    : publicIpMap.get(anInterface.getPublicIpId());
+            result.add(new AzureAddress(anInterface.getPrivateIp(), publicIp, 0, anInterface.getVmId(), null, null));
+        }
+        interner.nextRound();
+        inetAddresses.nextRound();
+
+        addresses = result;
+        return result;
+    }
+
+    /**
+     * Lists the network interfaces. For scale sets, the public IP addresses are expanded inline, so that the separate public
+     * IP address list is not needed. If the API rejects the expansion, the plain list is used from then on.
+     *
+     * @return the response or {@code null} if it did not change since the previous call
+     */
+    private JsonObject privateIpResponse(String url, String scaleSet, String accessToken) {
+        if (!isEmpty(scaleSet) && publicIpLookup && expandPublicIps) {
+            try {
+                return privateIpGet.get(url + EXPAND_PUBLIC_IP, accessToken);
+            } catch (RestClientException e) {
+                if (e.getHttpErrorCode() != HTTP_BAD_REQUEST) {
+                    throw e;
+                }
+                LOGGER.fine("Expanding public IP addresses of the scale set network interfaces is not supported,"
+                        + " listing public IP addresses separately", e);
+                expandPublicIps = false;
             }
         }
+        return privateIpGet.get(url, accessToken);
+    }
+
+    /**
+     * Public IP addresses are worth batching with the network interfaces only if they are needed, they are not expanded
+     * inline and the previously listed ones are not fresh anymore.
+     */
+    private boolean batchPublicIps(String scaleSet, String publicIpUrl) {
+        return batchApi != null && publicIpLookup && (isEmpty(scaleSet) || !expandPublicIps) && !publicIpsFresh(publicIpUrl);
+    }
+
+    private boolean publicIpsFresh(String url) {
+        return publicIps != null && url.equals(publicIpUrl) && System.nanoTime() - publicIpsListedNanos < publicIpRefreshNanos;
+    }
+
+    /**
+     * @return {@code false} if the {@code response} is {@code null}, i.e. it did not change since the previous call
+     */
+    private boolean updateNetworkInterfaces(JsonObject response, TagFilter tag) {
+        if (response == null) {
+            return false;
+        }
+        networkInterfaces = parsePrivateIpResponse(response, tag, null);
+        return true;
+    }
+
+    /**
+     * Lists the public IP addresses again if the ones listed at most {@code public-ip-refresh-seconds} ago are not fresh or
+     * any of the network interfaces refers to a public IP address which was not listed then.
+     *
+     * @return {@code true} if the public IP addresses changed
+     */
+    private boolean refreshPublicIps(String url, String accessToken) {
+        if (publicIpsFresh(url) && containsPublicIpIds(publicIps, networkInterfaces.values())) {
+            return false;
+        }
+        return updatePublicIps(url, publicIpGet.get(url, accessToken));
+    }
 
-        return addresses;
+    /**
+     * @return {@code false} if the {@code response} is {@code null}, i.e. it did not change since the previous call
+     */
+    private boolean updatePublicIps(String url, JsonObject response) {
+        publicIpsListedNanos = System.nanoTime();
+        if (response == null) {
+            return false;
+        }
+        publicIps = parsePublicIpResponse(response);
+        publicIpUrl = url;
+        return true;
+    }
+
+    private void forgetResponses() {
+        privateIpGet.reset();
+        publicIpGet.reset();
+        if (batchApi != null) {
+            batchApi.reset();
+        }
+        flexibleVmGet.reset();
+        subnetGet.reset();
+        if (loadBalancerApi != null) {
+            loadBalancerApi.reset();
+        }
+        backendPool = null;
+        backendPoolNics = null;
+        networkInterfaceApi.reset();
+        networkInterfaces = null;
+        publicIps = null;
+        addresses = null;
+        placedFrom = null;
+    }
+
+    private static boolean containsPublicIpIds(Map<String, InetAddress> publicIps,
+                                               Collection<AzureNetworkInterface> networkInterfaces) {
+        for (AzureNetworkInterface networkInterface : networkInterfaces) {
+            if (networkInterface.getPublicIpId() != null && !publicIps.containsKey(networkInterface.getPublicIpId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasPublicIpIds(Collection<AzureNetworkInterface> networkInterfaces) {
+        for (AzureNetworkInterface networkInterface : networkInterfaces) {
+            if (networkInterface.getPublicIpId() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the names of the scale sets in the resource group.
+     */
+    synchronized List<String> scaleSets(String subscriptionId, String resourceGroup, String accessToken) {
+        String url = String.format("%s/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute"
+                + "/virtualMachineScaleSets?api-version=%s", endpoint, subscriptionId, resourceGroup, API_VERSION_SCALE_SET);
+        JsonObject response;
+        try {
+            response = scaleSetGet.get(url, accessToken);
+        } catch (RuntimeException e) {
+            scaleSetGet.reset();
+            throw e;
+        }
+        if (response != null) {
+            List<String> names = new ArrayList<String>();
+            for (JsonValue item : toJsonArray(response.get("value"))) {
+                String name = item.asObject().getString("name", null);
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+            scaleSetNames = names;
+        }
+        return scaleSetNames;
+    }
+
+    /**
+     * Tells whether the scale set uses Flexible orchestration. The orchestration mode cannot change, so the scale set is
+     * looked up only once.
+     */
+    private boolean isFlexible(String subscriptionId, String resourceGroup, String scaleSet, String accessToken) {
+        String id = scaleSetId(subscriptionId, resourceGroup, scaleSet);
+        Boolean flexible = flexibleScaleSets.get(id);
+        if (flexible == null) {
+            String response = RestClient.create(String.format("%s%s?api-version=%s", endpoint, id, API_VERSION_FLEXIBLE))
+                                        .withHeader("Authorization", String.format("Bearer %s", accessToken))
+                                        .get();
+            JsonObject properties = toJsonObject(Json.parse(response).asObject().get("properties"));
+            flexible = "Flexible".equalsIgnoreCase(properties.getString("orchestrationMode", null));
+            LOGGER.fine(String.format("Scale set %s uses %s orchestration", scaleSet, flexible ? "Flexible" : "Uniform"));
+            flexibleScaleSets.put(id, flexible);
+        }
+        return flexible;
+    }
+
+    /**
+     * Lists the network interfaces of the VMs in a scale set with Flexible orchestration. The network interfaces are fetched
+     * only if the VM list changed, see {@link AzureNetworkInterfaceApi}.
+     *
+     * @return the network interfaces in the format of the network interfaces list, or {@code null} if neither the VMs nor
+     * their network interfaces changed since the previous call
+     */
+    private JsonObject flexibleNetworkInterfaces(String subscriptionId, String resourceGroup, String scaleSet,
+                                                 String accessToken) {
+        JsonObject vms = flexibleVmGet.get(urlForFlexibleVmList(subscriptionId, resourceGroup, scaleSet), accessToken);
+        Set<String> nicIds = null;
+        if (vms != null) {
+            virtualMachineApi.remember(vms);
+            nicIds = new LinkedHashSet<String>();
+            for (JsonValue vm : toJsonArray(vms.get("value"))) {
+                JsonObject networkProfile = toJsonObject(toJsonObject(vm.asObject().get("properties")).get("networkProfile"));
+                for (JsonValue nic : toJsonArray(networkProfile.get("networkInterfaces"))) {
+                    String id = nic.asObject().getString("id", null);
+                    if (!isEmpty(id)) {
+                        nicIds.add(id);
+                    }
+                }
+            }
+        }
+        return networkInterfaceApi.get(nicIds, accessToken);
+    }
+
+    private String urlForFlexibleVmList(String subscriptionId, String resourceGroup, String scaleSet) {
+        String filter = String.format("'virtualMachineScaleSet/id' eq '%s'", scaleSetId(subscriptionId, resourceGroup, scaleSet));
+        return String.format("%s/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute/virtualMachines"
+                + "?api-version=%s&$filter=%s", endpoint, subscriptionId, resourceGroup, API_VERSION_FLEXIBLE, urlEncode(filter));
+    }
+
+    private static String scaleSetId(String subscriptionId, String resourceGroup, String scaleSet) {
+        return String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute/virtualMachineScaleSets/%s",
+                subscriptionId, resourceGroup, scaleSet);
     }
 
     private String urlForPrivateIpList(String subscriptionId, String resourceGroup, String scaleSet) {
@@ -90,24 +522,35 @@ class AzureComputeApi {
         }
     }
 
-    private Map<String, AzureNetworkInterface> parsePrivateIpResponse(String response) {
-        Map<String, AzureNetworkInterface> interfaces = new HashMap<String, AzureNetworkInterface>();
+    /**
+     * Parses the network interfaces list and keeps only the interfaces matching the {@code tag}, so that no per-tag objects
+     * are created for the interfaces that are filtered out.
+     *
+     * @param ipConfigurationIds the lower-case IDs of the IP configurations to keep, or {@code null} to keep all
+     */
+    private Map<InetAddress, AzureNetworkInterface> parsePrivateIpResponse(JsonObject response, TagFilter tag,
+                                                                           Set<String> ipConfigurationIds) {
+        Map<InetAddress, AzureNetworkInterface> interfaces = new LinkedHashMap<InetAddress, AzureNetworkInterface>();
 
-        for (JsonValue item : toJsonArray(Json.parse(response).asObject().get("value"))) {
-            Set<Tag> tagList = new HashSet<>();
-            JsonObject tags = toJsonObject(item.asObject().get("tags"));
-            for (String key : tags.asObject().names()) {
-                tagList.add(new Tag(key, tags.asObject().getString(key, null)));
+        for (JsonValue item : toJsonArray(response.get("value"))) {
+            if (tag != null && !tag.matches(toJsonObject(item.asObject().get("tags")))) {
+                continue;
             }
 
             JsonObject properties = item.asObject().get("properties").asObject();
             if (properties.get("virtualMachine") != null) {
+                String vmId = interner.intern(toJsonObject(properties.get("virtualMachine")).getString("id", null));
                 for (JsonValue ipConfiguration : toJsonArray(properties.get("ipConfigurations"))) {
+                    if (ipConfigurationIds != null && !ipConfigurationIds.contains(
+                            ipConfiguration.asObject().getString("id", "").toLowerCase(Locale.ROOT))) {
+                        continue;
+                    }
                     JsonObject ipProps = ipConfiguration.asObject().get("properties").asObject();
                     String privateIp = ipProps.getString("privateIPAddress", null);
-                    String publicIpId = toJsonObject(ipProps.get("publicIPAddress")).getString("id", null);
+                    JsonObject publicIpAddress = toJsonObject(ipProps.get("publicIPAddress"));
                     if (!isEmpty(privateIp)) {
-                        interfaces.put(privateIp, new AzureNetworkInterface(privateIp, publicIpId, tagList));
+                        InetAddress privateAddress = inetAddresses.get(privateIp);
+                        interfaces.put(privateAddress, networkInterface(privateAddress, publicIpAddress, vmId));
                     }
                 }
             }
@@ -115,6 +558,23 @@ class AzureComputeApi {
         return interfaces;
     }
 
+    /**
+     * An expanded {@code publicIPAddress} carries its {@code properties}, so no {@code publicIpId} is kept for the lookup in
+     * the public IP address list.
+     */
+    private AzureNetworkInterface networkInterface(InetAddress privateAddress, JsonObject publicIpAddress, String vmId) {
+        if (!publicIpLookup) {
+            return new AzureNetworkInterface(privateAddress, null, null, vmId);
+        }
+        JsonValue publicIpProperties = publicIpAddress.get("properties");
+        if (publicIpProperties == null || publicIpProperties.isNull()) {
+            return new AzureNetworkInterface(privateAddress, interner.intern(publicIpAddress.getString("id", null)), null,
+                    vmId);
+        }
+        String publicIp = publicIpProperties.asObject().getString("ipAddress", null);
+        return new AzureNetworkInterface(privateAddress, null, isEmpty(publicIp) ? null : inetAddresses.get(publicIp), vmId);
+    }
+
     private String urlForPublicIpList(String subscriptionId, String resourceGroup, String scaleSet) {
         if (isEmpty(scaleSet)) {
             return String.format("%s/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
@@ -126,15 +586,13 @@ class AzureComputeApi {
         }
     }
 
-    private Map<String, String> parsePublicIpResponse(String response) {
-        Map<String, String> publicIps = new HashMap<String, String>();
+    private Map<String, InetAddress> parsePublicIpResponse(JsonObject response) {
+        Map<String, InetAddress> publicIps = new HashMap<String, InetAddress>();
 
-        for (JsonValue item : toJsonArray(Json.parse(response).asObject().get("value"))) {
+        for (JsonValue item : toJsonArray(response.get("value"))) {
             String id = item.asObject().getString("id", null);
             String ip = toJsonObject(item.asObject().get("properties")).getString("ipAddress", null);
-            if (!isEmpty(ip)) {
-                publicIps.put(id, ip);
-            }
+            publicIps.put(id, isEmpty(ip) ? null : inetAddresses.get(ip));
         }
 
         return publicIps;
@@ -15,6 +15,9 @@
 
 package com.hazelcast.azure;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Azure Discovery Strategy configuration that corresponds to the properties passed in the Hazelcast configuration and
  * listed in {@link AzureProperties}.
@@ -26,9 +29,29 @@ final class AzureConfig {
     private String subscriptionId;
     private String resourceGroup;
     private String scaleSet;
-    private Tag tag;
+    private List<String> scaleSets = Collections.emptyList();
+    private TagFilter tag;
     private PortRange hzPort;
     private Boolean instanceMetadataAvailable;
+    private boolean publicIpLookup;
+    private int publicIpRefreshSeconds;
+    private boolean armBatch;
+    private boolean spotAwarePlacement;
+    private int hedgePercentile;
+    private int hedgeBudgetPercent;
+    private List<AzureScope> additionalScopes = Collections.emptyList();
+    private int scopeParallelism;
+    private String loadBalancer;
+    private String backendPool;
+    private String subnet;
+    private String dnsName;
+    private String dnsServer;
+    private int dnsBudgetMillis;
+    private String registryContainerUrl;
+    private int registryTtlSeconds;
+    private int registryBudgetMillis;
+    private Integer eventGridPort;
+    private int eventGridReconciliationSeconds;
 
     private AzureConfig() {
     }
@@ -61,7 +84,7 @@ final class AzureConfig {
         return scaleSet;
     }
 
-    Tag getTag() {
+    TagFilter getTag() {
         return tag;
     }
 
@@ -73,6 +96,86 @@ final class AzureConfig {
         return instanceMetadataAvailable;
     }
 
+    boolean isPublicIpLookup() {
+        return publicIpLookup;
+    }
+
+    int getPublicIpRefreshSeconds() {
+        return publicIpRefreshSeconds;
+    }
+
+    boolean isArmBatch() {
+        return armBatch;
+    }
+
+    boolean isSpotAwarePlacement() {
+        return spotAwarePlacement;
+    }
+
+    int getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    int getHedgeBudgetPercent() {
+        return hedgeBudgetPercent;
+    }
+
+    List<String> getScaleSets() {
+        return scaleSets;
+    }
+
+    List<AzureScope> getAdditionalScopes() {
+        return additionalScopes;
+    }
+
+    int getScopeParallelism() {
+        return scopeParallelism;
+    }
+
+    String getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    String getBackendPool() {
+        return backendPool;
+    }
+
+    String getSubnet() {
+        return subnet;
+    }
+
+    String getDnsName() {
+        return dnsName;
+    }
+
+    String getDnsServer() {
+        return dnsServer;
+    }
+
+    int getDnsBudgetMillis() {
+        return dnsBudgetMillis;
+    }
+
+    String getRegistryContainerUrl() {
+        return registryContainerUrl;
+    }
+
+    int getRegistryTtlSeconds() {
+        return registryTtlSeconds;
+    }
+
+    int getRegistryBudgetMillis() {
+        return registryBudgetMillis;
+    }
+
+    Integer getEventGridPort() {
+        return eventGridPort;
+    }
+
+    int getEventGridReconciliationSeconds() {
+        return eventGridReconciliationSeconds;
+    }
+
     static final class Builder {
 
         private final AzureConfig config;
@@ -111,7 +214,7 @@ final class AzureConfig {
             return this;
         }
 
-        Builder setTag(Tag tag) {
+        Builder setTag(TagFilter tag) {
             this.config.tag = tag;
             return this;
         }
@@ -126,6 +229,106 @@ final class AzureConfig {
             return this;
         }
 
+        Builder setPublicIpLookup(boolean publicIpLookup) {
+            this.config.publicIpLookup = publicIpLookup;
+            return this;
+        }
+
+        Builder setPublicIpRefreshSeconds(int publicIpRefreshSeconds) {
+            this.config.publicIpRefreshSeconds = publicIpRefreshSeconds;
+            return this;
+        }
+
+        Builder setArmBatch(boolean armBatch) {
+            this.config.armBatch = armBatch;
+            return this;
+        }
+
+        Builder setSpotAwarePlacement(boolean spotAwarePlacement) {
+            this.config.spotAwarePlacement = spotAwarePlacement;
+            return this;
+        }
+
+        Builder setHedgePercentile(int hedgePercentile) {
+            this.config.hedgePercentile = hedgePercentile;
+            return this;
+        }
+
+        Builder setHedgeBudgetPercent(int hedgeBudgetPercent) {
+            this.config.hedgeBudgetPercent = hedgeBudgetPercent;
+            return this;
+        }
+
+        Builder setScaleSets(List<String> scaleSets) {
+            this.config.scaleSets = scaleSets;
+            return this;
+        }
+
+        Builder setAdditionalScopes(List<AzureScope> additionalScopes) {
+            this.config.additionalScopes = additionalScopes;
+            return this;
+        }
+
+        Builder setScopeParallelism(int scopeParallelism) {
+            this.config.scopeParallelism = scopeParallelism;
+            return this;
+        }
+
+        Builder setLoadBalancer(String loadBalancer) {
+            this.config.loadBalancer = loadBalancer;
+            return this;
+        }
+
+        Builder setBackendPool(String backendPool) {
+            this.config.backendPool = backendPool;
+            return this;
+        }
+
+        Builder setSubnet(String subnet) {
+            this.config.subnet = subnet;
+            return this;
+        }
+
+        Builder setDnsName(String dnsName) {
+            this.config.dnsName = dnsName;
+            return this;
+        }
+
+        Builder setDnsServer(String dnsServer) {
+            this.config.dnsServer = dnsServer;
+            return this;
+        }
+
+        Builder setDnsBudgetMillis(int dnsBudgetMillis) {
+            this.config.dnsBudgetMillis = dnsBudgetMillis;
+            return this;
+        }
+
+        Builder setRegistryContainerUrl(String registryContainerUrl) {
+            this.config.registryContainerUrl = registryContainerUrl;
+            return this;
+        }
+
+        Builder setRegistryTtlSeconds(int registryTtlSeconds) {
+            this.config.registryTtlSeconds = registryTtlSeconds;
+            return this;
+        }
+
+        Builder setRegistryBudgetMillis(int registryBudgetMillis) {
+            this.config.registryBudgetMillis = registryBudgetMillis;
+            return this;
+        }
+
+        Builder setEventGridPort(Integer eventGridPort) {
+            this.config.eventGridPort = eventGridPort;
+            return this;
+        }
+
+        Builder setEventGridReconciliationSeconds(int eventGridReconciliationSeconds) {
+            this.config.eventGridReconciliationSeconds = eventGridReconciliationSeconds;
+            return this;
+        }
+
         AzureConfig build() {
             return this.config;
         }
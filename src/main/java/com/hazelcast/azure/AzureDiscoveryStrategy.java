@@ -29,45 +29,109 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.hazelcast.azure.AzureProperties.ADDITIONAL_SCOPES;
+import static com.hazelcast.azure.AzureProperties.ARM_BATCH;
 import static com.hazelcast.azure.AzureProperties.CLIENT_ID;
 import static com.hazelcast.azure.AzureProperties.CLIENT_SECRET;
+import static com.hazelcast.azure.AzureProperties.DNS_BUDGET_MILLIS;
+import static com.hazelcast.azure.AzureProperties.DNS_NAME;
+import static com.hazelcast.azure.AzureProperties.DNS_SERVER;
+import static com.hazelcast.azure.AzureProperties.EVENT_GRID_PORT;
+import static com.hazelcast.azure.AzureProperties.EVENT_GRID_RECONCILIATION_SECONDS;
+import static com.hazelcast.azure.AzureProperties.HEDGE_BUDGET_PERCENT;
+import static com.hazelcast.azure.AzureProperties.HEDGE_PERCENTILE;
+import static com.hazelcast.azure.AzureProperties.LOAD_BALANCER;
+import static com.hazelcast.azure.AzureProperties.LOAD_BALANCER_BACKEND_POOL;
 import static com.hazelcast.azure.AzureProperties.PORT;
+import static com.hazelcast.azure.AzureProperties.PUBLIC_IP_LOOKUP;
+import static com.hazelcast.azure.AzureProperties.PUBLIC_IP_REFRESH_SECONDS;
+import static com.hazelcast.azure.AzureProperties.REGISTRY_BUDGET_MILLIS;
+import static com.hazelcast.azure.AzureProperties.REGISTRY_CONTAINER_URL;
+import static com.hazelcast.azure.AzureProperties.REGISTRY_TTL_SECONDS;
 import static com.hazelcast.azure.AzureProperties.RESOURCE_GROUP;
 import static com.hazelcast.azure.AzureProperties.SCALE_SET;
+import static com.hazelcast.azure.AzureProperties.SCALE_SETS;
+import static com.hazelcast.azure.AzureProperties.SCOPE_PARALLELISM;
+import static com.hazelcast.azure.AzureProperties.SPOT_AWARE_PLACEMENT;
+import static com.hazelcast.azure.AzureProperties.SUBNET;
 import static com.hazelcast.azure.AzureProperties.SUBSCRIPTION_ID;
 import static com.hazelcast.azure.AzureProperties.TENANT_ID;
 import static com.hazelcast.azure.AzureProperties.INSTANCE_METADATA_AVAILABLE;
 import static com.hazelcast.azure.Utils.isAllFilled;
 import static com.hazelcast.azure.Utils.isAnyFilled;
+import static com.hazelcast.azure.Utils.isEmpty;
 
 /**
  * Azure implementation of {@link DiscoveryStrategy}
+ * <p>
+ * The discovered nodes carry the zone, the fault domain and the ID of their VMs as properties, if known, and the nodes in
+ * the zone of the local member come first, so that the join attempts start with the closest members.
  */
 public class AzureDiscoveryStrategy extends AbstractDiscoveryStrategy {
 
+    /**
+     * Property of a discovered node with the ID of its VM.
+     */
+    static final String VM_ID_PROPERTY = "azure.vm-id";
+
+    /**
+     * Property of a discovered node with the fault domain of its VM.
+     */
+    static final String FAULT_DOMAIN_PROPERTY = "azure.fault-domain";
+
+    /**
+     * Metadata of the local member with the update domain of its VM.
+     */
+    static final String UPDATE_DOMAIN_PROPERTY = "azure.update-domain";
+
+    /**
+     * Metadata of the local member with the priority of its VM, e.g. "Spot" or "Regular".
+     */
+    static final String PRIORITY_PROPERTY = "azure.priority";
+
     private static final ILogger LOGGER = Logger.getLogger(AzureDiscoveryStrategy.class);
 
     private static final int HTTP_FORBIDDEN = 403;
+    private static final int MAX_HEDGE_PERCENTILE = 99;
+    private static final int MAX_HEDGE_BUDGET_PERCENT = 100;
+    private static final int MAX_PORT = 65535;
 
     private final AzureClient azureClient;
+    private final DiscoveryNode discoveryNode;
     private final PortRange portRange;
-    private final Map<String, String> memberMetadata = new HashMap<String, String>();
+    private final boolean instanceMetadataAvailable;
+    private final RequestHedger armHedger;
+    private final RequestHedger imdsHedger;
+    private Map<String, String> memberMetadata;
 
     private boolean isKnownExceptionAlreadyLogged;
 
     AzureDiscoveryStrategy(Map<String, Comparable> properties) {
+        this(null, properties);
+    }
+
+    /**
+     * @param discoveryNode the local member, which is registered in the registry container if configured, or {@code null}
+     *                      on Hazelcast clients
+     */
+    AzureDiscoveryStrategy(DiscoveryNode discoveryNode, Map<String, Comparable> properties) {
         super(LOGGER, properties);
+        this.discoveryNode = discoveryNode;
         try {
             AzureConfig azureConfig = createAzureConfig();
-            AzureMetadataApi azureMetadataApi = new AzureMetadataApi();
-            AzureComputeApi azureComputeApi = new AzureComputeApi();
+            this.armHedger = RequestHedger.createOrNull("arm", azureConfig);
+            this.imdsHedger = RequestHedger.createOrNull("imds", azureConfig);
+            AzureMetadataApi azureMetadataApi = new AzureMetadataApi(imdsHedger);
             AzureAuthenticator azureAuthenticator = new AzureAuthenticator();
-            this.azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+            this.azureClient = new AzureClient(azureMetadataApi, () -> new AzureComputeApi(azureConfig, armHedger),
+                    azureAuthenticator, azureConfig);
             this.portRange = azureConfig.getHzPort();
+            this.instanceMetadataAvailable = azureConfig.isInstanceMetadataAvailable();
         } catch (IllegalArgumentException e) {
             throw new InvalidConfigurationException("Invalid Azure Discovery Strategy configuration", e);
         }
@@ -77,9 +141,21 @@ public class AzureDiscoveryStrategy extends AbstractDiscoveryStrategy {
      * For test purposes only.
      */
     AzureDiscoveryStrategy(Map<String, Comparable> properties, AzureClient azureClient) {
+        this(null, properties, azureClient);
+    }
+
+    /**
+     * For test purposes only.
+     */
+    AzureDiscoveryStrategy(DiscoveryNode discoveryNode, Map<String, Comparable> properties, AzureClient azureClient) {
         super(LOGGER, properties);
+        this.discoveryNode = discoveryNode;
         this.azureClient = azureClient;
-        this.portRange = createAzureConfig().getHzPort();
+        AzureConfig azureConfig = createAzureConfig();
+        this.portRange = azureConfig.getHzPort();
+        this.instanceMetadataAvailable = azureConfig.isInstanceMetadataAvailable();
+        this.armHedger = null;
+        this.imdsHedger = null;
     }
 
     private AzureConfig createAzureConfig() {
@@ -89,6 +165,26 @@ public class AzureDiscoveryStrategy extends AbstractDiscoveryStrategy {
                                              .setSubscriptionId(getOrNull(SUBSCRIPTION_ID))
                                              .setResourceGroup(getOrNull(RESOURCE_GROUP))
                                              .setScaleSet(getOrNull(SCALE_SET))
+                                             .setScaleSets(scaleSets())
+                                             .setLoadBalancer(getOrNull(LOAD_BALANCER))
+                                             .setBackendPool(getOrNull(LOAD_BALANCER_BACKEND_POOL))
+                                             .setSubnet(getOrNull(SUBNET))
+                                             .setDnsName(getOrNull(DNS_NAME))
+                                             .setDnsServer((String) getOrDefault(DNS_SERVER.getDefinition(),
+                                                     DNS_SERVER.getDefaultValue()))
+                                             .setDnsBudgetMillis((Integer) getOrDefault(DNS_BUDGET_MILLIS.getDefinition(),
+                                                     DNS_BUDGET_MILLIS.getDefaultValue()))
+                                             .setRegistryContainerUrl(getOrNull(REGISTRY_CONTAINER_URL))
+                                             .setRegistryTtlSeconds(
+                                                     (Integer) getOrDefault(REGISTRY_TTL_SECONDS.getDefinition(),
+                                                             REGISTRY_TTL_SECONDS.getDefaultValue()))
+                                             .setRegistryBudgetMillis(
+                                                     (Integer) getOrDefault(REGISTRY_BUDGET_MILLIS.getDefinition(),
+                                                             REGISTRY_BUDGET_MILLIS.getDefaultValue()))
+                                             .setEventGridPort((Integer) getOrNull(EVENT_GRID_PORT.getDefinition()))
+                                             .setEventGridReconciliationSeconds(
+                                                     (Integer) getOrDefault(EVENT_GRID_RECONCILIATION_SECONDS.getDefinition(),
+                                                             EVENT_GRID_RECONCILIATION_SECONDS.getDefaultValue()))
                                              .setTag(tagOrNull())
                                              .setHzPort(
                                                      new PortRange((String) getOrDefault(PORT.getDefinition(),
@@ -96,24 +192,83 @@ public class AzureDiscoveryStrategy extends AbstractDiscoveryStrategy {
                                              .setInstanceMetadataAvailable(
                                                      (Boolean) getOrDefault(INSTANCE_METADATA_AVAILABLE.getDefinition(),
                                                              INSTANCE_METADATA_AVAILABLE.getDefaultValue()))
+                                             .setPublicIpLookup((Boolean) getOrDefault(PUBLIC_IP_LOOKUP.getDefinition(),
+                                                     PUBLIC_IP_LOOKUP.getDefaultValue()))
+                                             .setPublicIpRefreshSeconds(
+                                                     (Integer) getOrDefault(PUBLIC_IP_REFRESH_SECONDS.getDefinition(),
+                                                             PUBLIC_IP_REFRESH_SECONDS.getDefaultValue()))
+                                             .setArmBatch((Boolean) getOrDefault(ARM_BATCH.getDefinition(),
+                                                     ARM_BATCH.getDefaultValue()))
+                                             .setSpotAwarePlacement(
+                                                     (Boolean) getOrDefault(SPOT_AWARE_PLACEMENT.getDefinition(),
+                                                             SPOT_AWARE_PLACEMENT.getDefaultValue()))
+                                             .setHedgePercentile((Integer) getOrDefault(HEDGE_PERCENTILE.getDefinition(),
+                                                     HEDGE_PERCENTILE.getDefaultValue()))
+                                             .setHedgeBudgetPercent(
+                                                     (Integer) getOrDefault(HEDGE_BUDGET_PERCENT.getDefinition(),
+                                                             HEDGE_BUDGET_PERCENT.getDefaultValue()))
+                                             .setAdditionalScopes(additionalScopes())
+                                             .setScopeParallelism(
+                                                     (Integer) getOrDefault(SCOPE_PARALLELISM.getDefinition(),
+                                                             SCOPE_PARALLELISM.getDefaultValue()))
                                              .build();
         validate(azureConfig);
         return azureConfig;
     }
 
-    private Tag tagOrNull() {
+    private TagFilter tagOrNull() {
         String tagString = getOrNull(AzureProperties.TAG);
+        String tagExpression = getOrNull(AzureProperties.TAG_EXPRESSION);
+        if (tagString != null && tagExpression != null) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                    + "tag and tag-expression cannot be used together.");
+        }
         if (tagString != null) {
             return new Tag(tagString);
         }
+        if (tagExpression != null) {
+            return TagFilterParser.parse(tagExpression);
+        }
         return null;
     }
 
+    private List<String> scaleSets() {
+        String scaleSets = getOrNull(SCALE_SETS);
+        if (scaleSets == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<String>();
+        for (String scaleSet : scaleSets.split(",")) {
+            if (!scaleSet.trim().isEmpty()) {
+                result.add(scaleSet.trim());
+            }
+        }
+        return result;
+    }
+
+    private List<AzureScope> additionalScopes() {
+        String scopes = getOrNull(ADDITIONAL_SCOPES);
+        if (scopes == null) {
+            return Collections.emptyList();
+        }
+        return AzureScope.parseList(scopes);
+    }
+
     private String getOrNull(AzureProperties azureProperties) {
         return getOrNull(azureProperties.getDefinition());
     }
 
     private void validate(AzureConfig azureConfig) {
+        if (azureConfig.getPublicIpRefreshSeconds() < 0) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                    + "public-ip-refresh-seconds must not be negative.");
+        }
+        validateHedging(azureConfig);
+        validateSources(azureConfig);
+        validateUpdates(azureConfig);
+        if (azureConfig.getScopeParallelism() < 1) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: scope-parallelism must be positive.");
+        }
         if (!azureConfig.isInstanceMetadataAvailable()) {
             LOGGER.info("instance-metadata-available is set to false, validating other properties...");
             if (!isAllFilled(azureConfig.getTenantId(),
@@ -125,6 +280,10 @@ public class AzureDiscoveryStrategy extends AbstractDiscoveryStrategy {
                         + "useInstanceMetada property is configured as `false`. Please configure all of tenantId, clientId, "
                         + "clientSecret, subscriptionId, and resourceGroup properties.");
             }
+            if (azureConfig.isSpotAwarePlacement()) {
+                throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                        + "spot-aware-placement requires instance-metadata-available to be `true`.");
+            }
         } else {
             if (isAnyFilled(azureConfig.getTenantId(),
                     azureConfig.getClientId(),
@@ -139,15 +298,82 @@ public class AzureDiscoveryStrategy extends AbstractDiscoveryStrategy {
         }
     }
 
+    private static void validateUpdates(AzureConfig azureConfig) {
+        if (azureConfig.getDnsBudgetMillis() < 0 || azureConfig.getRegistryBudgetMillis() < 0) {
+            throw new InvalidConfigurationException(
+                    "Invalid Azure Discovery config: dns-budget-millis and registry-budget-millis must not be negative.");
+        }
+        if (azureConfig.getRegistryTtlSeconds() < 1) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: registry-ttl-seconds must be positive.");
+        }
+        Integer eventGridPort = azureConfig.getEventGridPort();
+        if (eventGridPort != null && (eventGridPort < 0 || eventGridPort > MAX_PORT)) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: event-grid-port must be a valid port.");
+        }
+        if (azureConfig.getEventGridReconciliationSeconds() < 1) {
+            throw new InvalidConfigurationException(
+                    "Invalid Azure Discovery config: event-grid-reconciliation-seconds must be positive.");
+        }
+    }
+
+    private static void validateSources(AzureConfig azureConfig) {
+        if (!azureConfig.getScaleSets().isEmpty() && !isEmpty(azureConfig.getScaleSet())) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                    + "scale-set and scale-sets cannot be configured at the same time.");
+        }
+        if (isEmpty(azureConfig.getLoadBalancer()) != isEmpty(azureConfig.getBackendPool())) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                    + "load-balancer and load-balancer-backend-pool must be configured together.");
+        }
+        if (!isEmpty(azureConfig.getLoadBalancer()) && (!isEmpty(azureConfig.getScaleSet())
+                || !azureConfig.getScaleSets().isEmpty() || !azureConfig.getAdditionalScopes().isEmpty())) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                    + "load-balancer cannot be configured together with scale-set, scale-sets or additional-scopes.");
+        }
+        validateSubnet(azureConfig);
+    }
+
+    private static void validateSubnet(AzureConfig azureConfig) {
+        String subnet = azureConfig.getSubnet();
+        if (isEmpty(subnet)) {
+            return;
+        }
+        if (!subnet.startsWith("/subscriptions/") && subnet.split("/").length != 2) {
+            throw new InvalidConfigurationException(String.format("Invalid Azure Discovery config: "
+                    + "subnet '%s' must be in the 'virtual-network/subnet' format or a subnet resource ID.", subnet));
+        }
+        if (!isEmpty(azureConfig.getScaleSet()) || !azureConfig.getScaleSets().isEmpty()
+                || !isEmpty(azureConfig.getLoadBalancer()) || !azureConfig.getAdditionalScopes().isEmpty()) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                    + "subnet cannot be configured together with scale-set, scale-sets, load-balancer or additional-scopes.");
+        }
+    }
+
+    private static void validateHedging(AzureConfig azureConfig) {
+        if (azureConfig.getHedgePercentile() < 0 || azureConfig.getHedgePercentile() > MAX_HEDGE_PERCENTILE) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                    + "hedge-percentile must be between 1 and 99, or 0 to disable hedging.");
+        }
+        if (azureConfig.getHedgeBudgetPercent() < 0 || azureConfig.getHedgeBudgetPercent() > MAX_HEDGE_BUDGET_PERCENT) {
+            throw new InvalidConfigurationException("Invalid Azure Discovery config: "
+                    + "hedge-budget-percent must be between 0 and 100.");
+        }
+    }
+
     @Override
     public Iterable<DiscoveryNode> discoverNodes() {
         try {
-            Collection<AzureAddress> azureAddresses = azureClient.getAddresses();
+            Collection<AzureAddress> azureAddresses = sameZoneFirst(azureClient.getAddresses());
             logAzureAddresses(azureAddresses);
             List<DiscoveryNode> result = new ArrayList<DiscoveryNode>();
             for (AzureAddress azureAddress : azureAddresses) {
+                Map<String, String> properties = nodeProperties(azureAddress);
+                if (azureAddress.getPort() != 0) {
+                    result.add(createDiscoveryNode(azureAddress, azureAddress.getPort(), properties));
+                    continue;
+                }
                 for (int port = portRange.getFromPort(); port <= portRange.getToPort(); port++) {
-                    result.add(createDiscoveryNode(azureAddress, port));
+                    result.add(createDiscoveryNode(azureAddress, port, properties));
                 }
             }
             return result;
@@ -186,17 +412,90 @@ public class AzureDiscoveryStrategy extends AbstractDiscoveryStrategy {
         }
     }
 
-    private static DiscoveryNode createDiscoveryNode(AzureAddress azureAddress, int port)
+    /**
+     * Moves the addresses in the zone of the local member to the front, keeping the order of the addresses otherwise.
+     */
+    private List<AzureAddress> sameZoneFirst(Collection<AzureAddress> azureAddresses) {
+        List<AzureAddress> result = new ArrayList<AzureAddress>(azureAddresses);
+        String localZone = localZone();
+        if (localZone != null) {
+            result.sort(Comparator.comparing(address -> !localZone.equals(address.getZone())));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the zone of the local member, or {@code null} if it is not known, e.g. outside of Azure.
+     */
+    private String localZone() {
+        if (!instanceMetadataAvailable) {
+            return null;
+        }
+        try {
+            return discoverLocalMetadata().get(PartitionGroupMetaData.PARTITION_GROUP_ZONE);
+        } catch (RuntimeException e) {
+            LOGGER.finest("Cannot read the zone of the local member", e);
+            return null;
+        }
+    }
+
+    private static Map<String, String> nodeProperties(AzureAddress azureAddress) {
+        Map<String, String> properties = new HashMap<String, String>();
+        putIfNotNull(properties, PartitionGroupMetaData.PARTITION_GROUP_ZONE, azureAddress.getZone());
+        putIfNotNull(properties, FAULT_DOMAIN_PROPERTY, azureAddress.getFaultDomain());
+        putIfNotNull(properties, VM_ID_PROPERTY, azureAddress.getVmId());
+        return properties.isEmpty() ? Collections.<String, String>emptyMap() : Collections.unmodifiableMap(properties);
+    }
+
+    private static void putIfNotNull(Map<String, String> properties, String key, String value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    private static DiscoveryNode createDiscoveryNode(AzureAddress azureAddress, int port, Map<String, String> properties)
             throws UnknownHostException {
-        Address privateAddress = new Address(azureAddress.getPrivateAddress(), port);
-        Address publicAddress = new Address(azureAddress.getPublicAddress(), port);
-        return new SimpleDiscoveryNode(privateAddress, publicAddress);
+        Address privateAddress = new Address(azureAddress.getPrivateInetAddress(), port);
+        if (azureAddress.getPublicInetAddress() == null) {
+            return new SimpleDiscoveryNode(privateAddress, properties);
+        }
+        Address publicAddress = new Address(azureAddress.getPublicInetAddress(), port);
+        return new SimpleDiscoveryNode(privateAddress, publicAddress, properties);
     }
 
     @Override
-    public Map<String, String> discoverLocalMetadata() {
-        if (memberMetadata.isEmpty()) {
-            memberMetadata.put(PartitionGroupMetaData.PARTITION_GROUP_ZONE, azureClient.getAvailabilityZone());
+    public void start() {
+        if (discoveryNode != null) {
+            Address address = discoveryNode.getPrivateAddress();
+            azureClient.register(address.getHost(), address.getPort());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        azureClient.shutdown();
+        if (armHedger != null) {
+            armHedger.shutdown();
+        }
+        if (imdsHedger != null) {
+            imdsHedger.shutdown();
+        }
+    }
+
+    /**
+     * Reads the metadata of the local member once. It is called concurrently by the discovery rounds, for the zone of the
+     * local member, and by the partition groups, so the metadata is published only when it is complete.
+     */
+    @Override
+    public synchronized Map<String, String> discoverLocalMetadata() {
+        if (memberMetadata == null) {
+            Map<String, String> metadata = new HashMap<String, String>();
+            metadata.put(PartitionGroupMetaData.PARTITION_GROUP_ZONE, azureClient.getAvailabilityZone());
+            putIfNotNull(metadata, PartitionGroupMetaData.PARTITION_GROUP_PLACEMENT, azureClient.getPlacement());
+            putIfNotNull(metadata, FAULT_DOMAIN_PROPERTY, azureClient.getFaultDomain());
+            putIfNotNull(metadata, UPDATE_DOMAIN_PROPERTY, azureClient.getUpdateDomain());
+            putIfNotNull(metadata, PRIORITY_PROPERTY, azureClient.getPriority());
+            memberMetadata = metadata;
         }
         return memberMetadata;
     }
@@ -48,7 +48,7 @@ public class AzureDiscoveryStrategyFactory implements DiscoveryStrategyFactory {
     @Override
     public DiscoveryStrategy newDiscoveryStrategy(DiscoveryNode node, ILogger logger,
                                                   Map<String, Comparable> properties) {
-        return new AzureDiscoveryStrategy(properties);
+        return new AzureDiscoveryStrategy(node, properties);
     }
 
     @Override
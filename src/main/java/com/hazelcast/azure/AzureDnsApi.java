@@ -0,0 +1,324 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.hazelcast.core.HazelcastException;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the instances from DNS records, e.g. from an Azure Private DNS zone linked to the virtual network. The records
+ * are either the A records registered automatically for the VMs, or SRV records registered by the members themselves.
+ * <p>
+ * The queries are sent over UDP directly to the DNS server, by default the Azure-provided DNS at {@value #AZURE_DNS_SERVER},
+ * so that the TTLs of the records are known. The resolved addresses are cached for the shortest TTL of their records, while
+ * the JVM resolver would cache them for a fixed time.
+ * <p>
+ * A name starting with an underscore, e.g. {@code _hazelcast._tcp.cluster.internal}, is resolved as SRV records, whose
+ * ports are used instead of the {@code hz-port} range. Any other name is resolved as A records.
+ */
+class AzureDnsApi {
+    static final String AZURE_DNS_SERVER = "168.63.129.16";
+
+    private static final int DNS_PORT = 53;
+    private static final int TYPE_A = 1;
+    private static final int TYPE_SRV = 33;
+    private static final int TYPE_OPT = 41;
+    private static final int CLASS_IN = 1;
+    private static final int FLAG_RECURSION_DESIRED = 0x0100;
+    private static final int FLAG_TRUNCATED = 0x0200;
+    private static final int RCODE_MASK = 0x000F;
+    private static final int RCODE_NAME_ERROR = 3;
+    private static final int UDP_PAYLOAD_SIZE = 4096;
+    private static final int REQUEST_SIZE = 512;
+    private static final int TIMEOUT_MS = 2000;
+    private static final int UNSIGNED_BYTE_MASK = 0xFF;
+    private static final int UNSIGNED_SHORT_MASK = 0xFFFF;
+    private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+    private static final int POINTER_MASK = 0xC0;
+    private static final int POINTER_OFFSET_MASK = 0x3FFF;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_POINTERS = 16;
+    private static final int IPV4_LENGTH = 4;
+    private static final int SRV_PRIORITY_AND_WEIGHT_LENGTH = 4;
+    private static final int QUESTION_TYPE_AND_CLASS_LENGTH = 4;
+
+    private final String name;
+    private final InetSocketAddress server;
+
+    private Collection<AzureAddress> addresses;
+    private long expiresNanos;
+
+    /**
+     * @param server the DNS server in the "host" or "host:port" format
+     */
+    AzureDnsApi(String name, String server) {
+        this.name = normalize(name);
+        int colon = server.indexOf(':');
+        this.server = colon < 0
+                ? new InetSocketAddress(server, DNS_PORT)
+                : new InetSocketAddress(server.substring(0, colon), Integer.parseInt(server.substring(colon + 1)));
+    }
+
+    /**
+     * Returns the addresses resolved from the DNS records, or the previously resolved ones if their TTL did not expire yet.
+     *
+     * @return the addresses, or an empty collection if there are no records
+     * @throws HazelcastException if the DNS server cannot be queried
+     */
+    synchronized Collection<AzureAddress> addresses() {
+        if (addresses != null && System.nanoTime() - expiresNanos < 0) {
+            return addresses;
+        }
+        try {
+            long[] ttl = {Long.MAX_VALUE};
+            Collection<AzureAddress> result = name.startsWith("_") ? resolveSrv(ttl) : resolveA(name, 0, ttl);
+            addresses = result;
+            expiresNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttl[0] == Long.MAX_VALUE ? 0 : ttl[0]);
+            return result;
+        } catch (IOException e) {
+            throw new HazelcastException(String.format("Cannot resolve %s with the DNS server %s", name, server), e);
+        }
+    }
+
+    private Collection<AzureAddress> resolveA(String host, int port, long[] ttl)
+            throws IOException {
+        Set<AzureAddress> result = new LinkedHashSet<AzureAddress>();
+        for (Record record : query(host, TYPE_A)) {
+            if (record.type == TYPE_A) {
+                ttl[0] = Math.min(ttl[0], record.ttl);
+                result.add(new AzureAddress(record.address, null, port));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the SRV records and the A records of their targets. The A records are usually returned with the SRV records
+     * as additional records, otherwise each target is resolved separately.
+     */
+    private Collection<AzureAddress> resolveSrv(long[] ttl)
+            throws IOException {
+        List<Record> records = query(name, TYPE_SRV);
+        Map<String, List<Record>> addressRecords = new HashMap<String, List<Record>>();
+        for (Record record : records) {
+            if (record.type == TYPE_A) {
+                List<Record> targetRecords = addressRecords.get(record.name);
+                if (targetRecords == null) {
+                    targetRecords = new ArrayList<Record>();
+                    addressRecords.put(record.name, targetRecords);
+                }
+                targetRecords.add(record);
+            }
+        }
+        Set<AzureAddress> result = new LinkedHashSet<AzureAddress>();
+        for (Record record : records) {
+            if (record.type != TYPE_SRV) {
+                continue;
+            }
+            ttl[0] = Math.min(ttl[0], record.ttl);
+            List<Record> targetRecords = addressRecords.get(record.target);
+            if (targetRecords == null) {
+                result.addAll(resolveA(record.target, record.port, ttl));
+                continue;
+            }
+            for (Record targetRecord : targetRecords) {
+                ttl[0] = Math.min(ttl[0], targetRecord.ttl);
+                result.add(new AzureAddress(targetRecord.address, null, record.port));
+            }
+        }
+        return result;
+    }
+
+    private List<Record> query(String host, int type)
+            throws IOException {
+        int id = ThreadLocalRandom.current().nextInt(UNSIGNED_SHORT_MASK + 1);
+        byte[] request = request(id, host, type);
+        byte[] response = new byte[UDP_PAYLOAD_SIZE];
+        DatagramPacket packet = new DatagramPacket(response, response.length);
+        DatagramSocket socket = new DatagramSocket();
+        try {
+            socket.setSoTimeout(TIMEOUT_MS);
+            socket.connect(server);
+            socket.send(new DatagramPacket(request, request.length));
+            do {
+                socket.receive(packet);
+            } while (packet.getLength() < 2 || ByteBuffer.wrap(response).getShort() != (short) id);
+        } finally {
+            socket.close();
+        }
+        try {
+            return parse(ByteBuffer.wrap(response, 0, packet.getLength()));
+        } catch (RuntimeException e) {
+            throw new IOException(String.format("Malformed DNS response for %s", host), e);
+        }
+    }
+
+    /**
+     * Creates a recursive query with an EDNS(0) record, which allows UDP responses larger than 512 bytes.
+     */
+    private static byte[] request(int id, String host, int type) {
+        ByteBuffer buffer = ByteBuffer.allocate(REQUEST_SIZE);
+        buffer.putShort((short) id).putShort((short) FLAG_RECURSION_DESIRED)
+              .putShort((short) 1).putShort((short) 0).putShort((short) 0).putShort((short) 1);
+        for (String label : host.split("\\.")) {
+            byte[] bytes = label.getBytes(StandardCharsets.US_ASCII);
+            if (bytes.length == 0 || bytes.length > MAX_LABEL_LENGTH) {
+                throw new IllegalArgumentException(String.format("Invalid DNS name: '%s'", host));
+            }
+            buffer.put((byte) bytes.length).put(bytes);
+        }
+        buffer.put((byte) 0).putShort((short) type).putShort((short) CLASS_IN);
+        buffer.put((byte) 0).putShort((short) TYPE_OPT).putShort((short) UDP_PAYLOAD_SIZE).putInt(0).putShort((short) 0);
+        byte[] request = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, request, 0, request.length);
+        return request;
+    }
+
+    /**
+     * Parses the A and SRV records from all sections of the response.
+     */
+    private static List<Record> parse(ByteBuffer buffer)
+            throws IOException {
+        buffer.getShort();
+        int flags = buffer.getShort() & UNSIGNED_SHORT_MASK;
+        if ((flags & FLAG_TRUNCATED) != 0) {
+            throw new IOException("DNS response is truncated");
+        }
+        int rcode = flags & RCODE_MASK;
+        if (rcode == RCODE_NAME_ERROR) {
+            return Collections.emptyList();
+        }
+        if (rcode != 0) {
+            throw new IOException(String.format("DNS server answered with response code %s", rcode));
+        }
+        int questions = buffer.getShort() & UNSIGNED_SHORT_MASK;
+        int records = (buffer.getShort() & UNSIGNED_SHORT_MASK) + (buffer.getShort() & UNSIGNED_SHORT_MASK)
+                + (buffer.getShort() & UNSIGNED_SHORT_MASK);
+        for (int i = 0; i < questions; i++) {
+            readName(buffer);
+            buffer.position(buffer.position() + QUESTION_TYPE_AND_CLASS_LENGTH);
+        }
+        List<Record> result = new ArrayList<Record>();
+        for (int i = 0; i < records; i++) {
+            Record record = readRecord(buffer);
+            if (record != null) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    private static Record readRecord(ByteBuffer buffer)
+            throws IOException {
+        String owner = readName(buffer);
+        int type = buffer.getShort() & UNSIGNED_SHORT_MASK;
+        buffer.getShort();
+        long ttl = buffer.getInt() & UNSIGNED_INT_MASK;
+        int length = buffer.getShort() & UNSIGNED_SHORT_MASK;
+        int end = buffer.position() + length;
+        Record record = null;
+        if (type == TYPE_A && length == IPV4_LENGTH) {
+            byte[] address = new byte[IPV4_LENGTH];
+            buffer.get(address);
+            record = new Record(owner, type, ttl, InetAddress.getByAddress(address), 0, null);
+        } else if (type == TYPE_SRV) {
+            buffer.position(buffer.position() + SRV_PRIORITY_AND_WEIGHT_LENGTH);
+            int port = buffer.getShort() & UNSIGNED_SHORT_MASK;
+            record = new Record(owner, type, ttl, null, port, readName(buffer));
+        }
+        buffer.position(end);
+        return record;
+    }
+
+    /**
+     * Reads a possibly compressed name and moves the buffer position after it.
+     */
+    private static String readName(ByteBuffer buffer)
+            throws IOException {
+        StringBuilder name = new StringBuilder();
+        int position = buffer.position();
+        int end = -1;
+        int pointers = 0;
+        int length = buffer.get(position) & UNSIGNED_BYTE_MASK;
+        while (length != 0) {
+            if ((length & POINTER_MASK) == POINTER_MASK) {
+                if (++pointers > MAX_POINTERS) {
+                    throw new IOException("DNS name compression loop");
+                }
+                end = end < 0 ? position + 2 : end;
+                position = buffer.getShort(position) & POINTER_OFFSET_MASK;
+            } else {
+                byte[] label = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    label[i] = buffer.get(position + 1 + i);
+                }
+                name.append(name.length() == 0 ? "" : ".").append(new String(label, StandardCharsets.US_ASCII));
+                position += length + 1;
+            }
+            length = buffer.get(position) & UNSIGNED_BYTE_MASK;
+        }
+        buffer.position(end < 0 ? position + 1 : end);
+        return normalize(name.toString());
+    }
+
+    /**
+     * DNS names are case-insensitive and may be written with the trailing dot of the root.
+     */
+    private static String normalize(String name) {
+        String lowerCase = name.trim().toLowerCase(Locale.ROOT);
+        return lowerCase.endsWith(".") ? lowerCase.substring(0, lowerCase.length() - 1) : lowerCase;
+    }
+
+    /**
+     * A or SRV resource record.
+     */
+    private static final class Record {
+        private final String name;
+        private final int type;
+        private final long ttl;
+        private final InetAddress address;
+        private final int port;
+        private final String target;
+
+        Record(String name, int type, long ttl, InetAddress address, int port, String target) {
+            this.name = name;
+            this.type = type;
+            this.ttl = ttl;
+            this.address = address;
+            this.port = port;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.internal.json.Json;
+import com.hazelcast.internal.json.JsonObject;
+import com.hazelcast.internal.json.JsonValue;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Webhook receiver of Azure Event Grid resource events, in the CloudEvents or in the Event Grid schema.
+ * <p>
+ * Every successful write, delete or action on a VM, scale set, network interface, public IP address or load balancer is
+ * reported to the listener with the ID of the resource, i.e. the subject of the event. The Event Grid subscription is expected
+ * to be scoped to the resource groups of the instances. The events carry no addresses, so they can only trigger a new listing
+ * with the Azure API and cannot inject members, which is why the receiver does not authenticate the sender.
+ * <p>
+ * Both subscription validation handshakes are answered: the OPTIONS request of the CloudEvents schema and the
+ * {@code Microsoft.EventGrid.SubscriptionValidationEvent} of the Event Grid schema.
+ *
+ * @see <a href="https://docs.microsoft.com/en-us/azure/event-grid/event-schema-resource-groups">Resource group events</a>
+ */
+class AzureEventReceiver {
+    private static final ILogger LOGGER = Logger.getLogger(AzureEventReceiver.class);
+
+    private static final String RESOURCE_EVENT_PREFIX = "Microsoft.Resources.Resource";
+    private static final String RESOURCE_EVENT_SUFFIX = "Success";
+    private static final String VALIDATION_EVENT = "Microsoft.EventGrid.SubscriptionValidationEvent";
+    private static final Pattern DISCOVERED_RESOURCE = Pattern.compile("(?i).*/providers/("
+            + "Microsoft\\.Compute/(virtualMachines|virtualMachineScaleSets)"
+            + "|Microsoft\\.Network/(networkInterfaces|publicIPAddresses|loadBalancers))/.*");
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_BAD_METHOD = 405;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Consumer<String> listener;
+
+    /**
+     * @param port     port of the receiver, or {@code 0} for any free port
+     * @param listener called with the ID of every written, deleted or changed resource which affects the discovery
+     */
+    AzureEventReceiver(int port, Consumer<String> listener) {
+        this.listener = listener;
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new HazelcastException(String.format("Cannot start the Event Grid receiver on port %s", port), e);
+        }
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hz.azure.AzureEventReceiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    void shutdown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange)
+            throws IOException {
+        try {
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                String origin = exchange.getRequestHeaders().getFirst("WebHook-Request-Origin");
+                exchange.getResponseHeaders().add("WebHook-Allowed-Origin", origin != null ? origin : "*");
+                exchange.getResponseHeaders().add("WebHook-Allowed-Rate", "*");
+                respond(exchange, HTTP_OK, "");
+            } else if ("POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, HTTP_OK, handleEvents(read(exchange.getRequestBody())));
+            } else {
+                respond(exchange, HTTP_BAD_METHOD, "");
+            }
+        } catch (RuntimeException e) {
+            LOGGER.fine("Invalid Event Grid request", e);
+            respond(exchange, HTTP_BAD_REQUEST, "");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handles a single event or a batch of events, and returns the response body.
+     */
+    private String handleEvents(String body) {
+        JsonValue json = Json.parse(body);
+        Iterable<JsonValue> events = json.isArray() ? json.asArray() : Collections.singletonList(json);
+        String response = "";
+        for (JsonValue event : events) {
+            JsonObject eventObject = event.asObject();
+            String type = eventObject.getString("type", eventObject.getString("eventType", ""));
+            if (VALIDATION_EVENT.equals(type)) {
+                String validationCode = eventObject.get("data").asObject().getString("validationCode", "");
+                response = new JsonObject().add("validationResponse", validationCode).toString();
+            } else if (type.startsWith(RESOURCE_EVENT_PREFIX) && type.endsWith(RESOURCE_EVENT_SUFFIX)) {
+                String subject = eventObject.getString("subject", null);
+                if (subject != null && DISCOVERED_RESOURCE.matcher(subject).matches()) {
+                    LOGGER.finest(String.format("%s: %s", type, subject));
+                    listener.accept(subject);
+                }
+            }
+        }
+        return response;
+    }
+
+    private static String read(InputStream stream) {
+        Scanner scanner = new Scanner(stream, "UTF-8");
+        scanner.useDelimiter("\\Z");
+        return scanner.hasNext() ? scanner.next() : "";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.hazelcast.internal.json.JsonObject;
+import com.hazelcast.internal.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static com.hazelcast.azure.Utils.isEmpty;
+import static com.hazelcast.azure.Utils.networkInterfaceId;
+
+/**
+ * Responsible for reading the members of an Azure Load Balancer backend pool.
+ * <p>
+ * One request returns the references to the IP configurations of all network interfaces in the pool, or the IP addresses
+ * of an IP-based pool, and one more request lists the network interfaces associated with the load balancer, so the cost of
+ * a discovery round does not depend on the size of the pool.
+ *
+ * @see <a href="https://docs.microsoft.com/en-us/rest/api/load-balancer/load-balancer-backend-address-pools/get">
+ * Load Balancer Backend Address Pools API</a>
+ * @see <a href="https://docs.microsoft.com/en-us/rest/api/load-balancer/load-balancer-network-interfaces/list">
+ * Load Balancer Network Interfaces API</a>
+ */
+class AzureLoadBalancerApi {
+    static final String API_VERSION = "2020-06-01";
+
+    private final String endpoint;
+    private final String loadBalancer;
+    private final String backendPool;
+    private final ConditionalGet backendPoolGet;
+    private final ConditionalGet networkInterfaceGet;
+
+    AzureLoadBalancerApi(String endpoint, String loadBalancer, String backendPool, RequestHedger hedger) {
+        this.endpoint = endpoint;
+        this.loadBalancer = loadBalancer;
+        this.backendPool = backendPool;
+        this.backendPoolGet = new ConditionalGet(hedger);
+        this.networkInterfaceGet = new ConditionalGet(hedger);
+    }
+
+    /**
+     * @return the members of the backend pool, or {@code null} if they did not change since the previous call
+     */
+    BackendPool backendPool(String subscriptionId, String resourceGroup, String accessToken) {
+        String url = String.format("%s/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/loadBalancers/%s"
+                        + "/backendAddressPools/%s?api-version=%s", endpoint, subscriptionId, resourceGroup, loadBalancer,
+                backendPool, API_VERSION);
+        JsonObject response = backendPoolGet.get(url, accessToken);
+        return response == null ? null : parse(response);
+    }
+
+    /**
+     * Lists the network interfaces associated with the load balancer, in any of its backend pools, in the format of the
+     * network interfaces list.
+     *
+     * @return the network interfaces, or {@code null} if they did not change since the previous call
+     */
+    JsonObject networkInterfaces(String subscriptionId, String resourceGroup, String accessToken) {
+        String url = String.format("%s/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/loadBalancers/%s"
+                + "/networkInterfaces?api-version=%s", endpoint, subscriptionId, resourceGroup, loadBalancer, API_VERSION);
+        return networkInterfaceGet.get(url, accessToken);
+    }
+
+    /**
+     * Forgets the previous responses, so that the next ones are returned even if they did not change.
+     */
+    void reset() {
+        backendPoolGet.reset();
+        networkInterfaceGet.reset();
+    }
+
+    private static BackendPool parse(JsonObject response) {
+        Set<String> ipConfigurationIds = new HashSet<String>();
+        List<String> ipAddresses = new ArrayList<String>();
+
+        JsonValue properties = response.get("properties");
+        if (properties == null || properties.isNull()) {
+            return new BackendPool(ipConfigurationIds, ipAddresses);
+        }
+        for (JsonValue ipConfiguration : items(properties.asObject().get("backendIPConfigurations"))) {
+            String id = ipConfiguration.asObject().getString("id", null);
+            if (networkInterfaceId(id) != null) {
+                ipConfigurationIds.add(id.toLowerCase(Locale.ROOT));
+            }
+        }
+        for (JsonValue address : items(properties.asObject().get("loadBalancerBackendAddresses"))) {
+            JsonValue addressProperties = address.asObject().get("properties");
+            if (addressProperties != null && addressProperties.isObject()
+                    && addressProperties.asObject().get("networkInterfaceIPConfiguration") == null) {
+                String ipAddress = addressProperties.asObject().getString("ipAddress", null);
+                if (!isEmpty(ipAddress)) {
+                    ipAddresses.add(ipAddress);
+                }
+            }
+        }
+        return new BackendPool(ipConfigurationIds, ipAddresses);
+    }
+
+    private static Iterable<JsonValue> items(JsonValue value) {
+        if (value == null || !value.isArray()) {
+            return new ArrayList<JsonValue>();
+        }
+        return value.asArray();
+    }
+
+    /**
+     * Members of a backend pool: the network interfaces with the IP configurations in the pool, and the IP addresses of an
+     * IP-based pool.
+     */
+    static final class BackendPool {
+        private final Set<String> ipConfigurationIds;
+        private final List<String> ipAddresses;
+
+        BackendPool(Set<String> ipConfigurationIds, List<String> ipAddresses) {
+            this.ipConfigurationIds = ipConfigurationIds;
+            this.ipAddresses = ipAddresses;
+        }
+
+        /**
+         * @return the lower-case IDs of the IP configurations, since Azure resource IDs are case-insensitive
+         */
+        Set<String> getIpConfigurationIds() {
+            return ipConfigurationIds;
+        }
+
+        List<String> getIpAddresses() {
+            return ipAddresses;
+        }
+    }
+}
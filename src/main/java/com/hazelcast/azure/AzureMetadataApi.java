@@ -20,25 +20,35 @@ import com.hazelcast.internal.json.JsonObject;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Responsible for connecting to the Azure Instance Metadata API.
  *
  * @see <a href="https://docs.microsoft.com/en-us/azure/virtual-machines/windows/instance-metadata-service">
  * Azure Instance Metadata Service</a>
+ * <p>
+ * The metadata of the local VM does not change while it runs, so it is fetched once per process and shared by all instances.
  */
 class AzureMetadataApi {
     static final String API_VERSION = "2018-02-01";
+    static final String COMPUTE_API_VERSION = "2021-02-01";
     static final String RESOURCE = "https://management.azure.com";
     private static final String METADATA_ENDPOINT = "http://169.254.169.254";
     private static final int HTTP_BAD_REQUEST = 400;
+    private static final Map<String, String> PROCESS_METADATA = new ConcurrentHashMap<>();
 
     private final String endpoint;
     private final Map<String, String> metadata;
+    private final RequestHedger hedger;
 
-    AzureMetadataApi() {
+    /**
+     * @param hedger hedges the requests, or {@code null} if they should not be hedged
+     */
+    AzureMetadataApi(RequestHedger hedger) {
         this.endpoint = METADATA_ENDPOINT;
-        this.metadata = new HashMap<>();
+        this.metadata = PROCESS_METADATA;
+        this.hedger = hedger;
     }
 
     /**
@@ -47,6 +57,16 @@ class AzureMetadataApi {
     AzureMetadataApi(String endpoint, Map<String, String> metadata) {
         this.endpoint = endpoint;
         this.metadata = metadata;
+        this.hedger = null;
+    }
+
+    /**
+     * For test purposes only.
+     */
+    AzureMetadataApi(String endpoint, Map<String, String> metadata, RequestHedger hedger) {
+        this.endpoint = endpoint;
+        this.metadata = metadata;
+        this.hedger = hedger;
     }
 
     String subscriptionId() {
@@ -69,6 +89,17 @@ class AzureMetadataApi {
         return getMetadataProperty("platformFaultDomain");
     }
 
+    /**
+     * Returns the priority of the VM: "Spot", "Regular", or "Low" for the VMs of the low-priority scale sets.
+     */
+    String priority() {
+        return getMetadataProperty("priority");
+    }
+
+    String updateDomain() {
+        return getMetadataProperty("platformUpdateDomain");
+    }
+
     String scaleSet() {
         return getMetadataProperty("vmScaleSetName");
     }
@@ -79,22 +110,37 @@ class AzureMetadataApi {
     }
 
     private void fillMetadata() {
-        if (metadata.isEmpty()) {
-            String urlString = String.format("%s/metadata/instance/compute?api-version=%s", endpoint, API_VERSION);
-            String response = callGet(urlString);
-            JsonObject jsonObject = Json.parse(response).asObject();
-            for (String property : jsonObject.names()) {
-                if (jsonObject.get(property).isString()) {
-                    metadata.put(property, jsonObject.get(property).asString());
+        if (!metadata.isEmpty()) {
+            return;
+        }
+        synchronized (metadata) {
+            if (metadata.isEmpty()) {
+                String urlString = String.format("%s/metadata/instance/compute?api-version=%s", endpoint,
+                        COMPUTE_API_VERSION);
+                String response = callGet(urlString);
+                JsonObject jsonObject = Json.parse(response).asObject();
+                Map<String, String> properties = new HashMap<>();
+                for (String property : jsonObject.names()) {
+                    if (jsonObject.get(property).isString()) {
+                        properties.put(property, jsonObject.get(property).asString());
+                    }
                 }
+                metadata.putAll(properties);
             }
         }
     }
 
     String accessToken() {
+        return accessToken(RESOURCE);
+    }
+
+    /**
+     * Returns an access token of the managed identity for the given {@code resource}, e.g. Azure Storage.
+     */
+    String accessToken(String resource) {
         try {
             String urlString = String.format("%s/metadata/identity/oauth2/token?api-version=%s&resource=%s", endpoint,
-                    API_VERSION, RESOURCE);
+                    API_VERSION, resource);
             String accessTokenResponse = callGet(urlString);
             return extractAccessToken(accessTokenResponse);
         } catch (Exception e) {
@@ -106,6 +152,7 @@ class AzureMetadataApi {
     private String callGet(String urlString) {
         return RestClient.create(urlString)
                          .withHeader("Metadata", "true")
+                         .withHedging(hedger)
                          .get();
     }
 
@@ -15,23 +15,35 @@
 
 package com.hazelcast.azure;
 
-import java.util.Set;
+import java.net.InetAddress;
 
 /**
  * AzureNetworkInterface
+ * <p>
+ * The public IP is known only when the network interfaces were listed with the public IP addresses expanded. Otherwise
+ * it has to be looked up by {@code publicIpId} in the public IP address list.
  */
 final class AzureNetworkInterface {
-    private final String privateIp;
+    private final InetAddress privateIp;
     private final String publicIpId;
-    private final Set<Tag> tags;
+    private final InetAddress publicIp;
+    private final String vmId;
 
-    AzureNetworkInterface(String privateIp, String publicIpId, Set<Tag> tags) {
+    AzureNetworkInterface(InetAddress privateIp, String publicIpId, InetAddress publicIp) {
+        this(privateIp, publicIpId, publicIp, null);
+    }
+
+    /**
+     * @param vmId the ID of the VM which the network interface is attached to, or {@code null} if not known
+     */
+    AzureNetworkInterface(InetAddress privateIp, String publicIpId, InetAddress publicIp, String vmId) {
         this.privateIp = privateIp;
         this.publicIpId = publicIpId;
-        this.tags = tags;
+        this.publicIp = publicIp;
+        this.vmId = vmId;
     }
 
-    String getPrivateIp() {
+    InetAddress getPrivateIp() {
         return privateIp;
     }
 
@@ -39,7 +51,11 @@ final class AzureNetworkInterface {
         return publicIpId;
     }
 
-    boolean hasTag(Tag tag) {
-        return this.tags.contains(tag);
+    InetAddress getPublicIp() {
+        return publicIp;
+    }
+
+    String getVmId() {
+        return vmId;
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.internal.json.JsonArray;
+import com.hazelcast.internal.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Responsible for fetching network interfaces by their IDs, for the sources which list only the references to the network
+ * interfaces, e.g. the VMs of a scale set with Flexible orchestration.
+ * <p>
+ * The network interfaces are fetched only when their IDs changed, or when they were fetched more than
+ * {@link #REFRESH_NANOS} ago, so that a change of a network interface alone, e.g. of its tags, is picked up eventually.
+ * Otherwise a discovery round costs no request per network interface. Each network interface is fetched with its own
+ * conditional GET, so an unchanged one costs a "304 Not Modified" response, and up to {@link #PARALLELISM} of them are
+ * fetched in parallel. The threads stop when they are idle, so the API needs no shutdown.
+ * <p>
+ * A network interface which is not found, e.g. because it was deleted after the list referring to it was read, is left out,
+ * so that a scale-in does not fail the round and make the next round fetch all the network interfaces again.
+ */
+class AzureNetworkInterfaceApi {
+    private static final int PARALLELISM = 8;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final long REFRESH_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final long IDLE_THREAD_SECONDS = 60;
+    private static final String EXPAND_PUBLIC_IP = "&$expand=ipConfigurations/publicIPAddress";
+    private static final JsonObject NOT_FOUND = new JsonObject();
+
+    private final String endpoint;
+    private final boolean publicIpLookup;
+    private final RequestHedger hedger;
+    private final ThreadPoolExecutor executor;
+
+    private Map<String, ConditionalGet> nicGets = new LinkedHashMap<String, ConditionalGet>();
+    private final Map<String, JsonObject> nics = new HashMap<String, JsonObject>();
+    private long fetchedNanos;
+
+    AzureNetworkInterfaceApi(String endpoint, boolean publicIpLookup, RequestHedger hedger) {
+        this.endpoint = endpoint;
+        this.publicIpLookup = publicIpLookup;
+        this.hedger = hedger;
+        this.executor = new ThreadPoolExecutor(PARALLELISM, PARALLELISM, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), runnable -> {
+            Thread thread = new Thread(runnable, "hz.azure.AzureNetworkInterfaceApi");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param nicIds the IDs of the network interfaces, or {@code null} if they are the same as in the previous call
+     * @return the network interfaces in the format of the network interfaces list, or {@code null} if neither the IDs nor
+     * the network interfaces changed since the previous call
+     */
+    synchronized JsonObject get(Collection<String> nicIds, String accessToken) {
+        if (nicIds == null && System.nanoTime() - fetchedNanos < REFRESH_NANOS) {
+            return null;
+        }
+        boolean changed = nicIds != null;
+        if (nicIds != null) {
+            Map<String, ConditionalGet> nicGets = new LinkedHashMap<String, ConditionalGet>();
+            for (String id : nicIds) {
+                ConditionalGet nicGet = this.nicGets.get(id);
+                nicGets.put(id, nicGet != null ? nicGet : new ConditionalGet(hedger));
+            }
+            this.nicGets = nicGets;
+            nics.keySet().retainAll(nicGets.keySet());
+        }
+        Map<String, JsonObject> fetched = fetchAll(accessToken);
+        fetchedNanos = System.nanoTime();
+        for (Map.Entry<String, JsonObject> nic : fetched.entrySet()) {
+            if (nic.getValue() == NOT_FOUND) {
+                nicGets.remove(nic.getKey());
+                nics.remove(nic.getKey());
+                changed = true;
+            } else if (nic.getValue() != null) {
+                nics.put(nic.getKey(), nic.getValue());
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return null;
+        }
+        JsonArray value = new JsonArray();
+        for (String id : nicGets.keySet()) {
+            value.add(nics.get(id));
+        }
+        return new JsonObject().add("value", value);
+    }
+
+    /**
+     * Forgets the previous responses, so that all the network interfaces are fetched and returned by the next call.
+     */
+    synchronized void reset() {
+        nicGets = new LinkedHashMap<String, ConditionalGet>();
+        nics.clear();
+        fetchedNanos = 0;
+    }
+
+    /**
+     * @return the changed network interfaces by their IDs, with {@code null} for the unchanged ones and {@link #NOT_FOUND}
+     * for the ones which do not exist
+     */
+    private Map<String, JsonObject> fetchAll(String accessToken) {
+        List<Future<JsonObject>> futures = new ArrayList<Future<JsonObject>>(nicGets.size());
+        for (Map.Entry<String, ConditionalGet> nicGet : nicGets.entrySet()) {
+            String url = url(nicGet.getKey());
+            futures.add(executor.submit(() -> nicGet.getValue().get(url, accessToken)));
+        }
+        Map<String, JsonObject> result = new LinkedHashMap<String, JsonObject>();
+        try {
+            int i = 0;
+            for (String id : nicGets.keySet()) {
+                result.put(id, fetched(futures.get(i++)));
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause() : new HazelcastException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException(e);
+        } finally {
+            for (Future<JsonObject> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return result;
+    }
+
+    private static JsonObject fetched(Future<JsonObject> future)
+            throws ExecutionException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RestClientException
+                    && ((RestClientException) e.getCause()).getHttpErrorCode() == HTTP_NOT_FOUND) {
+                return NOT_FOUND;
+            }
+            throw e;
+        }
+    }
+
+    private String url(String id) {
+        String url = String.format("%s%s?api-version=%s", endpoint, id,
+                id.contains("/virtualMachineScaleSets/") ? AzureComputeApi.API_VERSION_SCALE_SET : AzureComputeApi.API_VERSION);
+        return publicIpLookup ? url + EXPAND_PUBLIC_IP : url;
+    }
+}
@@ -20,6 +20,7 @@ import com.hazelcast.config.properties.PropertyTypeConverter;
 import com.hazelcast.config.properties.SimplePropertyDefinition;
 
 import static com.hazelcast.config.properties.PropertyTypeConverter.BOOLEAN;
+import static com.hazelcast.config.properties.PropertyTypeConverter.INTEGER;
 import static com.hazelcast.config.properties.PropertyTypeConverter.STRING;
 
 /**
@@ -68,6 +69,108 @@ enum AzureProperties {
      */
     SCALE_SET("scale-set", STRING, true),
 
+    /**
+     * Names of the Azure VM scale sets where instances are discovered, in the resource group of the current VM or the one
+     * configured with <code>resource-group</code>. Format: comma-separated list of names or patterns, where <code>*</code>
+     * matches any characters and <code>?</code> matches a single character, e.g. "hz-data,hz-lite-*".
+     * <p>
+     * This property can be used also when <code>instance-metadata-available</code> is <code>true</code>, and replaces the
+     * scale set of the current VM then. It cannot be used together with <code>scale-set</code>.
+     */
+    SCALE_SETS("scale-sets", STRING, true),
+
+    /**
+     * Name of the Azure Load Balancer whose backend pool contains the instances, in the resource group of the current VM or
+     * the one configured with <code>resource-group</code>. The instances are discovered from the members of the backend
+     * pool instead of from the network interfaces of the resource group or scale set.
+     * <p>
+     * It must be configured together with <code>load-balancer-backend-pool</code>, and cannot be used together with
+     * <code>scale-set</code>, <code>scale-sets</code> or <code>additional-scopes</code>.
+     */
+    LOAD_BALANCER("load-balancer", STRING, true),
+
+    /**
+     * Name of the backend pool of the <code>load-balancer</code>.
+     */
+    LOAD_BALANCER_BACKEND_POOL("load-balancer-backend-pool", STRING, true),
+
+    /**
+     * Subnet whose IP configurations are the instances, e.g. a subnet dedicated to the cluster in a shared resource group.
+     * Format: "virtual-network/subnet" for a virtual network in the resource group of the current VM or the one configured
+     * with <code>resource-group</code>, or the full resource ID of the subnet.
+     * <p>
+     * It cannot be used together with <code>scale-set</code>, <code>scale-sets</code>, <code>load-balancer</code> or
+     * <code>additional-scopes</code>.
+     */
+    SUBNET("subnet", STRING, true),
+
+    /**
+     * DNS name resolved to the instances before the Azure API is called, e.g. a name in an Azure Private DNS zone linked to
+     * the virtual network. A name starting with an underscore, e.g. "_hazelcast._tcp.cluster.internal", is resolved as SRV
+     * records, whose ports are used instead of <code>hz-port</code>. Any other name is resolved as A records, e.g. the
+     * records registered automatically for the VMs, or a name registered by the members.
+     * <p>
+     * The instances are discovered with the Azure API as before if the name cannot be resolved or has no records.
+     */
+    DNS_NAME("dns-name", STRING, true),
+
+    /**
+     * DNS server used to resolve <code>dns-name</code>. Format: "host" or "host:port".
+     * <p>
+     * The default value is <code>168.63.129.16</code>, the Azure-provided DNS which resolves the names of the private DNS
+     * zones linked to the virtual network.
+     */
+    DNS_SERVER("dns-server", STRING, true, AzureDnsApi.AZURE_DNS_SERVER),
+
+    /**
+     * Time after which the next discovery source is queried, if the DNS name has not been resolved yet. The DNS answer is
+     * still used if it comes before the answer of the next source.
+     * <p/>
+     * The default value is <code>100</code>.
+     */
+    DNS_BUDGET_MILLIS("dns-budget-millis", INTEGER, true, 100),
+
+    /**
+     * URL of an Azure Storage blob container used as a registry of the members, e.g.
+     * "https://account.blob.core.windows.net/hazelcast". Each member keeps a blob with its address there, and the instances
+     * are discovered from one listing of the container before the Azure API is called.
+     * <p>
+     * The managed identity or the service principal needs the "Storage Blob Data Contributor" role on the container. The
+     * instances are discovered with the Azure API as before if the container cannot be listed or has no live members.
+     */
+    REGISTRY_CONTAINER_URL("registry-container-url", STRING, true),
+
+    /**
+     * Time after which the registration of a member which stopped its heartbeats expires. The members rewrite their
+     * registrations three times per TTL.
+     * <p/>
+     * The default value is <code>60</code>.
+     */
+    REGISTRY_TTL_SECONDS("registry-ttl-seconds", INTEGER, true, 60),
+
+    /**
+     * Time after which the Azure API is queried, if the registry container has not been listed yet. The registry answer is
+     * still used if it comes before the answer of the Azure API.
+     * <p/>
+     * The default value is <code>500</code>.
+     */
+    REGISTRY_BUDGET_MILLIS("registry-budget-millis", INTEGER, true, 500),
+
+    /**
+     * Port of a webhook receiver of Azure Event Grid resource events, in the CloudEvents or in the Event Grid schema. If
+     * configured, the instances listed with the Azure API are cached, and listed again only after an event about a VM,
+     * scale set, network interface, public IP address or load balancer, or after the reconciliation interval.
+     */
+    EVENT_GRID_PORT("event-grid-port", INTEGER, true),
+
+    /**
+     * Maximum age of the instances listed with the Azure API when the Event Grid events are received, in case any event is
+     * lost.
+     * <p/>
+     * The default value is <code>300</code>.
+     */
+    EVENT_GRID_RECONCILIATION_SECONDS("event-grid-reconciliation-seconds", INTEGER, true, 300),
+
     /**
      * A tag to limit the instance discovery. Format: "key=value".
      * <p>
@@ -75,6 +178,13 @@ enum AzureProperties {
      */
     TAG("tag", STRING, true),
 
+    /**
+     * A tag filter expression to limit the instance discovery, combining conditions with "and", "or", "not" and parentheses,
+     * where each condition is "key=value", "key!=value" or "key in (value1,value2)", e.g. "env=prod and role in (data,cp)".
+     * Cannot be used together with "tag".
+     */
+    TAG_EXPRESSION("tag-expression", STRING, true),
+
     /**
      * Port range where Hazelcast is expected to be running. Format: "5701" or "5701-5703".
      * <p>
@@ -94,7 +204,77 @@ enum AzureProperties {
      * <p/>
      * The default value is <code>true</code>.
      */
-    INSTANCE_METADATA_AVAILABLE("instance-metadata-available", BOOLEAN, true, Boolean.TRUE);
+    INSTANCE_METADATA_AVAILABLE("instance-metadata-available", BOOLEAN, true, Boolean.TRUE),
+
+    /**
+     * Property to enable/disable the priority of the VM (<code>Spot</code> or <code>Regular</code>) as the placement of the
+     * member for the <code>PLACEMENT_AWARE</code> partition group, instead of its zone or its fault and update domains. The
+     * backups of the partitions owned by members on Spot VMs are then kept on regular priority VMs and vice versa, so that
+     * an eviction of the Spot VMs does not lose any partition. Requires the instance metadata to be available.
+     * <p/>
+     * The default value is <code>false</code>.
+     */
+    SPOT_AWARE_PLACEMENT("spot-aware-placement", BOOLEAN, true, Boolean.FALSE),
+
+    /**
+     * Property to enable/disable the lookup of the public IP addresses of the instances. Can be set to <code>false</code> when
+     * all Hazelcast members and clients run in the same virtual network, so that public IP addresses are never listed and the
+     * private address of an instance is used as its public address as well.
+     * <p/>
+     * The default value is <code>true</code>.
+     */
+    PUBLIC_IP_LOOKUP("public-ip-lookup", BOOLEAN, true, Boolean.TRUE),
+
+    /**
+     * Number of seconds for which the listed public IP addresses are reused across discovery rounds. Public IP addresses are
+     * listed again earlier if a network interface refers to a public IP address which is not known yet.
+     * <p/>
+     * The default value is <code>0</code>, i.e. the public IP addresses are listed in every discovery round.
+     */
+    PUBLIC_IP_REFRESH_SECONDS("public-ip-refresh-seconds", INTEGER, true, 0),
+
+    /**
+     * Property to enable/disable sending the independent Azure Resource Manager requests of a discovery round, e.g. the
+     * network interface and the public IP address lists, in one ARM batch request. The requests are sent one by one if the
+     * batch request fails.
+     * <p/>
+     * The default value is <code>false</code>.
+     */
+    ARM_BATCH("arm-batch", BOOLEAN, true, Boolean.FALSE),
+
+    /**
+     * Percentile of the recently observed latencies after which a GET request to Azure Resource Manager or Azure Instance
+     * Metadata Service is hedged, i.e. sent once more while the first request is still pending, and the response which
+     * arrives first is used. Valid values are <code>1</code> - <code>99</code>, e.g. <code>95</code>.
+     * <p/>
+     * The default value is <code>0</code>, i.e. requests are not hedged.
+     */
+    HEDGE_PERCENTILE("hedge-percentile", INTEGER, true, 0),
+
+    /**
+     * Maximum number of hedged requests in percent of all requests, so that a slow or throttling Azure API does not receive
+     * many additional requests. Valid values are <code>0</code> - <code>100</code>.
+     * <p/>
+     * The default value is <code>5</code>.
+     */
+    HEDGE_BUDGET_PERCENT("hedge-budget-percent", INTEGER, true, 5),
+
+    /**
+     * Additional scopes where instances are discovered, e.g. the resource groups of the other zones of the cluster. Format:
+     * comma-separated list of "subscription-id/resource-group" or "subscription-id/resource-group/scale-set".
+     * <p>
+     * The instances are always discovered in the scope of the current VM, or in the scope configured with
+     * <code>subscription-id</code>, <code>resource-group</code> and <code>scale-set</code>, too. All scopes are queried in
+     * parallel and must belong to the same tenant.
+     */
+    ADDITIONAL_SCOPES("additional-scopes", STRING, true),
+
+    /**
+     * Maximum number of scopes queried in parallel.
+     * <p/>
+     * The default value is <code>4</code>.
+     */
+    SCOPE_PARALLELISM("scope-parallelism", INTEGER, true, 4);
 
     private final PropertyDefinition propertyDefinition;
     private final Comparable defaultValue;
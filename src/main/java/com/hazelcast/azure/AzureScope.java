@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a part of Azure where instances are discovered: a resource group of a subscription, optionally limited to a
+ * scale set.
+ */
+final class AzureScope {
+    private static final int MIN_SEGMENTS = 2;
+    private static final int MAX_SEGMENTS = 3;
+
+    private final String subscriptionId;
+    private final String resourceGroup;
+    private final String scaleSet;
+
+    AzureScope(String subscriptionId, String resourceGroup, String scaleSet) {
+        this.subscriptionId = subscriptionId;
+        this.resourceGroup = resourceGroup;
+        this.scaleSet = scaleSet;
+    }
+
+    /**
+     * Creates the list of {@link AzureScope} from the {@code spec} String.
+     *
+     * @param spec comma-separated list of "subscription-id/resource-group" or "subscription-id/resource-group/scale-set"
+     * @throws IllegalArgumentException if the specified spec is not a valid list of scopes
+     */
+    static List<AzureScope> parseList(String spec) {
+        List<AzureScope> scopes = new ArrayList<AzureScope>();
+        for (String scope : spec.split(",")) {
+            String[] segments = scope.trim().split("/");
+            if (segments.length < MIN_SEGMENTS || segments.length > MAX_SEGMENTS) {
+                throw new IllegalArgumentException(String.format("Invalid scope specification: '%s'", scope.trim()));
+            }
+            for (String segment : segments) {
+                if (segment.trim().isEmpty()) {
+                    throw new IllegalArgumentException(String.format("Invalid scope specification: '%s'", scope.trim()));
+                }
+            }
+            scopes.add(new AzureScope(segments[0].trim(), segments[1].trim(),
+                    segments.length == MAX_SEGMENTS ? segments[2].trim() : null));
+        }
+        return scopes;
+    }
+
+    String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    String getResourceGroup() {
+        return resourceGroup;
+    }
+
+    String getScaleSet() {
+        return scaleSet;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        AzureScope that = (AzureScope) o;
+
+        if (subscriptionId != null ? !subscriptionId.equals(that.subscriptionId) : that.subscriptionId != null) {
+            return false;
+        }
+        if (resourceGroup != null ? !resourceGroup.equals(that.resourceGroup) : that.resourceGroup != null) {
+            return false;
+        }
+        return scaleSet != null ? scaleSet.equals(that.scaleSet) : that.scaleSet == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = subscriptionId != null ? subscriptionId.hashCode() : 0;
+        result = 31 * result + (resourceGroup != null ? resourceGroup.hashCode() : 0);
+        result = 31 * result + (scaleSet != null ? scaleSet.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AzureScope{"
+                + "subscriptionId='" + subscriptionId + '\''
+                + ", resourceGroup='" + resourceGroup + '\''
+                + ", scaleSet='" + scaleSet + '\''
+                + '}';
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.hazelcast.internal.json.JsonArray;
+import com.hazelcast.internal.json.JsonObject;
+import com.hazelcast.internal.json.JsonValue;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Responsible for the placement, i.e. the zone and the fault domain, of the VMs which the network interfaces are attached to.
+ * <p>
+ * The placement of a VM cannot change, so the VMs are listed only when an address belongs to a VM whose placement is not
+ * known yet, e.g. after a scale-out. The VMs of scale sets with Flexible orchestration are remembered from their VM list,
+ * which is fetched anyway, so they never cost an additional request.
+ * <p>
+ * A VM list which was fetched but did not yield the placement of all its VMs, e.g. because the request failed or a VM is
+ * being deleted, is not fetched again before a backoff elapses, which doubles with every miss up to
+ * {@link #MAX_MISS_BACKOFF_NANOS}, so a single unknown VM does not add a VM list request to every discovery round.
+ * <p>
+ * The zone has the format of {@link AzureClient#getAvailabilityZone()}: "LOCATION-ZONE", or the fault domain if the VM is
+ * not deployed in an availability zone.
+ */
+class AzureVirtualMachineApi {
+    private static final ILogger LOGGER = Logger.getLogger(AzureVirtualMachineApi.class);
+
+    private static final String SCALE_SET_VMS = "/virtualmachinescalesets/";
+    private static final long MIN_MISS_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long MAX_MISS_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(30);
+
+    private final String endpoint;
+    private final RequestHedger hedger;
+    private final Map<String, Placement> placements = new HashMap<String, Placement>();
+    private final Map<String, Miss> misses = new HashMap<String, Miss>();
+
+    AzureVirtualMachineApi(String endpoint, RequestHedger hedger) {
+        this.endpoint = endpoint;
+        this.hedger = hedger;
+    }
+
+    /**
+     * Returns the {@code addresses} with the zone and the fault domain of their VMs.
+     */
+    Collection<AzureAddress> place(Collection<AzureAddress> addresses, String accessToken) {
+        Set<String> vmIds = new HashSet<String>();
+        Map<String, String> vmLists = new LinkedHashMap<String, String>();
+        for (AzureAddress address : addresses) {
+            String vmId = lowerCase(address.getVmId());
+            if (vmId != null) {
+                vmIds.add(vmId);
+                if (!placements.containsKey(vmId) && vmId.lastIndexOf('/') > 0) {
+                    vmLists.put(vmId.substring(0, vmId.lastIndexOf('/')),
+                            address.getVmId().substring(0, vmId.lastIndexOf('/')));
+                }
+            }
+        }
+        long now = System.nanoTime();
+        for (Map.Entry<String, String> vmList : vmLists.entrySet()) {
+            Miss miss = misses.get(vmList.getKey());
+            if (miss == null || now - miss.retryNanos >= 0) {
+                listVms(vmList.getValue(), accessToken);
+            }
+        }
+        placements.keySet().retainAll(vmIds);
+        rememberMisses(vmIds, now);
+
+        Set<AzureAddress> result = new LinkedHashSet<AzureAddress>(addresses.size());
+        for (AzureAddress address : addresses) {
+            Placement placement = placements.get(lowerCase(address.getVmId()));
+            result.add(placement == null ? address : address.withPlacement(placement.zone, placement.faultDomain));
+        }
+        return result;
+    }
+
+    /**
+     * Backs off the VM lists which still have VMs without a known placement, and forgets the others.
+     */
+    private void rememberMisses(Set<String> vmIds, long now) {
+        Set<String> missedLists = new HashSet<String>();
+        for (String vmId : vmIds) {
+            if (!placements.containsKey(vmId) && vmId.lastIndexOf('/') > 0) {
+                missedLists.add(vmId.substring(0, vmId.lastIndexOf('/')));
+            }
+        }
+        misses.keySet().retainAll(missedLists);
+        for (String vmList : missedLists) {
+            Miss miss = misses.get(vmList);
+            if (miss == null) {
+                misses.put(vmList, new Miss(now + MIN_MISS_BACKOFF_NANOS, MIN_MISS_BACKOFF_NANOS));
+            } else if (now - miss.retryNanos >= 0) {
+                long backoffNanos = Math.min(miss.backoffNanos * 2, MAX_MISS_BACKOFF_NANOS);
+                misses.put(vmList, new Miss(now + backoffNanos, backoffNanos));
+            }
+        }
+    }
+
+    /**
+     * Remembers the placement of the VMs in a VM list response which was fetched for another purpose.
+     */
+    void remember(JsonObject vms) {
+        for (JsonValue vm : toJsonArray(vms.get("value"))) {
+            rememberVm(vm.asObject());
+        }
+    }
+
+    /**
+     * Lists the VMs of a resource group, or of a scale set with Uniform orchestration, whose VMs report their fault domain
+     * only in the instance view.
+     */
+    private void listVms(String vmListId, String accessToken) {
+        boolean scaleSet = vmListId.toLowerCase(Locale.ROOT).contains(SCALE_SET_VMS);
+        String url = scaleSet
+                ? String.format("%s%s?api-version=%s&$expand=instanceView", endpoint, vmListId,
+                        AzureComputeApi.API_VERSION_SCALE_SET)
+                : String.format("%s%s?api-version=%s", endpoint, vmListId, AzureComputeApi.API_VERSION_FLEXIBLE);
+        try {
+            JsonObject response = new ConditionalGet(hedger).get(url, accessToken);
+            remember(response);
+        } catch (RuntimeException e) {
+            LOGGER.fine(String.format("Cannot list the VMs in %s, their zones are not known", vmListId), e);
+        }
+    }
+
+    private void rememberVm(JsonObject vm) {
+        String id = vm.getString("id", null);
+        if (id == null) {
+            return;
+        }
+        JsonObject properties = toJsonObject(vm.get("properties"));
+        JsonValue faultDomainValue = properties.get("platformFaultDomain");
+        if (faultDomainValue == null || !faultDomainValue.isNumber()) {
+            faultDomainValue = toJsonObject(properties.get("instanceView")).get("platformFaultDomain");
+        }
+        String faultDomain = faultDomainValue != null && faultDomainValue.isNumber()
+                ? String.valueOf(faultDomainValue.asInt()) : null;
+        JsonValue zones = vm.get("zones");
+        String zone = zones != null && zones.isArray() && !zones.asArray().isEmpty()
+                ? String.format("%s-%s", vm.getString("location", ""), zones.asArray().get(0).asString())
+                : faultDomain;
+        placements.put(id.toLowerCase(Locale.ROOT), new Placement(zone, faultDomain));
+    }
+
+    private static String lowerCase(String id) {
+        return id == null ? null : id.toLowerCase(Locale.ROOT);
+    }
+
+    private static JsonArray toJsonArray(JsonValue jsonValue) {
+        if (jsonValue == null || jsonValue.isNull()) {
+            return new JsonArray();
+        }
+        return jsonValue.asArray();
+    }
+
+    private static JsonObject toJsonObject(JsonValue jsonValue) {
+        if (jsonValue == null || jsonValue.isNull()) {
+            return new JsonObject();
+        }
+        return jsonValue.asObject();
+    }
+
+    /**
+     * The time after which a VM list with VMs of unknown placement is fetched again.
+     */
+    private static final class Miss {
+        private final long retryNanos;
+        private final long backoffNanos;
+
+        private Miss(long retryNanos, long backoffNanos) {
+            this.retryNanos = retryNanos;
+            this.backoffNanos = backoffNanos;
+        }
+    }
+
+    /**
+     * The zone and the fault domain of a VM.
+     */
+    private static final class Placement {
+        private final String zone;
+        private final String faultDomain;
+
+        private Placement(String zone, String faultDomain) {
+            this.zone = zone;
+            this.faultDomain = faultDomain;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.hazelcast.internal.json.JsonObject;
+import com.hazelcast.internal.json.JsonValue;
+
+import java.util.Arrays;
+
+/**
+ * Sends GET requests which tell whether the response changed since the previous request to the same URL.
+ * <p>
+ * The ETag of the previous response is sent in the "If-None-Match" header, so that the Azure API can answer with "304 Not
+ * Modified" if it supports it. Otherwise, an unchanged response is recognized by the digest of its body.
+ * <p>
+ * Responses are parsed while they are received, without buffering the (possibly compressed) body. For responses without an
+ * ETag, e.g. the network interface and public IP address lists, the digest is computed over the same stream.
+ */
+final class ConditionalGet {
+    private final RequestHedger hedger;
+
+    private String url;
+    private String etag;
+    private byte[] digest;
+
+    ConditionalGet() {
+        this(null);
+    }
+
+    /**
+     * @param hedger hedges the requests, or {@code null} if they should not be hedged
+     */
+    ConditionalGet(RequestHedger hedger) {
+        this.hedger = hedger;
+    }
+
+    /**
+     * @return the parsed response body, or {@code null} if it is the same as the response of the previous request to
+     * {@code url}
+     */
+    synchronized JsonObject get(String url, String accessToken) {
+        boolean sameUrl = url.equals(this.url);
+        RestClient restClient = RestClient
+                .create(url)
+                .withHeader("Authorization", String.format("Bearer %s", accessToken))
+                .withHedging(hedger);
+        if (sameUrl && etag != null) {
+            JsonValue response = restClient.withHeader("If-None-Match", etag).getJson();
+            if (response == null) {
+                return null;
+            }
+            remember(url, restClient.getResponseEtag(), null);
+            return response.asObject();
+        }
+        JsonValue response = restClient.withResponseDigest().getJson();
+        boolean unchanged = sameUrl && Arrays.equals(digest, restClient.getResponseDigest());
+        remember(url, restClient.getResponseEtag(), restClient.getResponseDigest());
+        return unchanged ? null : response.asObject();
+    }
+
+    private void remember(String url, String etag, byte[] digest) {
+        this.url = url;
+        this.etag = etag;
+        this.digest = digest;
+    }
+
+    /**
+     * Forgets the previous response, so that the next one is returned even if it did not change.
+     */
+    synchronized void reset() {
+        url = null;
+        etag = null;
+        digest = null;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Queries an ordered chain of discovery backends, from the fastest one to the authoritative one, and returns the first answer
+ * with any members.
+ * <p>
+ * The backends are started one after another: the next backend starts as soon as the previous one answers without any
+ * members, or when the latency budget of the previous one elapses, in which case both race and the first answer with any
+ * members wins. The calls which lose the race are not cancelled, and a call which is still in flight is reused by the next
+ * round, so that a backend never has more than one call in flight.
+ * <p>
+ * When a faster backend wins, the authoritative backend is still called in the background, at most once per refresh interval,
+ * which keeps its access token and its response caches warm for the rounds in which it is needed.
+ * <p>
+ * The backends other than the authoritative one are expected to report their failures as answers without any members. The
+ * failure of the authoritative backend is thrown if no backend has any members.
+ */
+final class DiscoveryChain {
+    private static final ILogger LOGGER = Logger.getLogger(DiscoveryChain.class);
+
+    private final List<Backend> backends;
+    private final long refreshIntervalNanos;
+    private final List<Future<Collection<AzureAddress>>> inFlight = new ArrayList<Future<Collection<AzureAddress>>>();
+    private final BlockingQueue<Object> completions = new LinkedBlockingQueue<Object>();
+    private final ExecutorService executor;
+
+    private long authoritativeStartedNanos;
+
+    /**
+     * @param backends             the backends, from the fastest one to the authoritative one
+     * @param refreshIntervalNanos minimum interval between the background calls of the authoritative backend
+     */
+    DiscoveryChain(List<Backend> backends, long refreshIntervalNanos) {
+        this.backends = new ArrayList<Backend>(backends);
+        this.refreshIntervalNanos = refreshIntervalNanos;
+        for (int i = 0; i < backends.size(); i++) {
+            inFlight.add(null);
+        }
+        this.executor = backends.size() > 1 ? Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "hz.azure.DiscoveryChain");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    synchronized Collection<AzureAddress> addresses() {
+        if (backends.size() == 1) {
+            return backends.get(0).addresses.get();
+        }
+        // the completions left behind by the previous rounds are stale, the answers are checked before every wait anyway
+        completions.clear();
+        int last = backends.size() - 1;
+        int started = 0;
+        long nextStartNanos = System.nanoTime();
+        while (true) {
+            for (int i = 0; i < started; i++) {
+                Collection<AzureAddress> addresses = answerOrEmpty(inFlight.get(i));
+                if (!addresses.isEmpty()) {
+                    LOGGER.finest(String.format("Discovered %s members with %s", addresses.size(), backends.get(i).name));
+                    refreshInBackground(i);
+                    return addresses;
+                }
+            }
+            if (started <= last && (System.nanoTime() - nextStartNanos >= 0 || allAnswered(started))) {
+                start(started);
+                nextStartNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backends.get(started).budgetMillis);
+                started++;
+                continue;
+            }
+            if (started > last && allAnswered(started)) {
+                return answer(inFlight.get(last));
+            }
+            awaitAnswer(started <= last ? nextStartNanos - System.nanoTime() : Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Stops the background calls.
+     */
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void start(int index) {
+        Future<Collection<AzureAddress>> call = inFlight.get(index);
+        if (call != null && !call.isDone()) {
+            return;
+        }
+        FutureTask<Collection<AzureAddress>> task = new FutureTask<Collection<AzureAddress>>(
+                () -> backends.get(index).addresses.get()) {
+            @Override
+            protected void done() {
+                completions.add(this);
+            }
+        };
+        inFlight.set(index, task);
+        if (index == backends.size() - 1) {
+            authoritativeStartedNanos = System.nanoTime();
+        }
+        executor.execute(task);
+    }
+
+    private void refreshInBackground(int winner) {
+        int last = backends.size() - 1;
+        if (winner == last) {
+            return;
+        }
+        Future<Collection<AzureAddress>> call = inFlight.get(last);
+        if (call == null || call.isDone() && System.nanoTime() - authoritativeStartedNanos > refreshIntervalNanos) {
+            LOGGER.finest(String.format("Refreshing %s in the background", backends.get(last).name));
+            start(last);
+        }
+    }
+
+    private boolean allAnswered(int started) {
+        for (int i = 0; i < started; i++) {
+            if (!inFlight.get(i).isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits until any call completes, or until the {@code timeoutNanos} elapses. The completions of the calls of the previous
+     * rounds only cause another check of the answers.
+     */
+    private void awaitAnswer(long timeoutNanos) {
+        try {
+            completions.poll(Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException(e);
+        }
+    }
+
+    private static Collection<AzureAddress> answerOrEmpty(Future<Collection<AzureAddress>> call) {
+        if (!call.isDone()) {
+            return new ArrayList<AzureAddress>();
+        }
+        try {
+            return call.get();
+        } catch (Exception e) {
+            return new ArrayList<AzureAddress>();
+        }
+    }
+
+    private static Collection<AzureAddress> answer(Future<Collection<AzureAddress>> call) {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new HazelcastException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException(e);
+        }
+    }
+
+    /**
+     * A discovery backend with its latency budget, after which the next backend of the chain is started.
+     */
+    static final class Backend {
+        private final String name;
+        private final Supplier<Collection<AzureAddress>> addresses;
+        private final long budgetMillis;
+
+        /**
+         * @param name         name of the backend, used in the log messages
+         * @param addresses    returns the addresses of the members
+         * @param budgetMillis time after which the next backend is started if this one has not answered
+         */
+        Backend(String name, Supplier<Collection<AzureAddress>> addresses, long budgetMillis) {
+            this.name = name;
+            this.addresses = addresses;
+            this.budgetMillis = budgetMillis;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Sends the HTTP requests of {@link RestClient}.
+ * <p>
+ * The default transport is selected by {@link HttpTransports#defaultTransport()}.
+ */
+interface HttpTransport {
+
+    /**
+     * Sends the request and returns as soon as the status and the headers of the response are received.
+     *
+     * @param body the request body, or {@code null} if the request has no body
+     */
+    Response send(String method, String url, Map<String, String> headers, byte[] body)
+            throws IOException;
+
+    /**
+     * Response of a request sent by a {@link HttpTransport}. Closing it releases the underlying connection.
+     */
+    interface Response extends Closeable {
+
+        int getStatus()
+                throws IOException;
+
+        /**
+         * Returns the first value of the response header {@code name}, or {@code null} if the header is missing.
+         */
+        String getHeader(String name);
+
+        /**
+         * Returns the (possibly compressed) response body, which is the error body for error statuses, or {@code null} if
+         * there is none.
+         */
+        InputStream getBody()
+                throws IOException;
+    }
+}
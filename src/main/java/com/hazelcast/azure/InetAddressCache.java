@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.internal.util.collection.Int2ObjectHashMap;
+import com.hazelcast.internal.util.collection.Long2ObjectHashMap;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+/**
+ * Resolves the IP literals returned by the Azure API into {@link InetAddress} instances without any DNS lookup.
+ * <p>
+ * The IPs are packed into primitives (an {@code int} for IPv4 and two {@code long}s for IPv6) and the resolved instances
+ * are kept in primitive-keyed maps, so the same VM yields the same {@link InetAddress} in every discovery round. Only the
+ * addresses seen in the current and in the previous round are retained.
+ */
+final class InetAddressCache {
+    private static final int IPV4_OCTETS = 4;
+    private static final int IPV6_GROUPS = 8;
+    private static final int IPV6_GROUPS_PER_LONG = 4;
+    private static final int MAX_OCTET = 255;
+    private static final int MAX_GROUP_DIGITS = 4;
+    private static final int HEX_RADIX = 16;
+    private static final int BYTE_BITS = 8;
+    private static final int GROUP_BITS = 16;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int DECIMAL_RADIX = 10;
+
+    private final int[] groups = new int[IPV6_GROUPS];
+    private final long[] ipv6 = new long[2];
+
+    private Int2ObjectHashMap<InetAddress> previousIpv4 = new Int2ObjectHashMap<InetAddress>();
+    private Int2ObjectHashMap<InetAddress> currentIpv4 = new Int2ObjectHashMap<InetAddress>();
+    private Long2ObjectHashMap<Long2ObjectHashMap<InetAddress>> previousIpv6 =
+            new Long2ObjectHashMap<Long2ObjectHashMap<InetAddress>>();
+    private Long2ObjectHashMap<Long2ObjectHashMap<InetAddress>> currentIpv6 =
+            new Long2ObjectHashMap<Long2ObjectHashMap<InetAddress>>();
+
+    /**
+     * Returns the cached {@link InetAddress} for the {@code ip}. Values which are not IP literals are resolved with
+     * {@link InetAddress#getByName(String)} and are not cached.
+     */
+    synchronized InetAddress get(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        try {
+            long ipv4 = parseIpv4(ip);
+            if (ipv4 >= 0) {
+                return getIpv4((int) ipv4);
+            }
+            if (parseIpv6(ip)) {
+                return getIpv6(ipv6[0], ipv6[1]);
+            }
+            return InetAddress.getByName(ip);
+        } catch (UnknownHostException e) {
+            throw new HazelcastException(e);
+        }
+    }
+
+    /**
+     * Forgets the addresses which were not seen since the last call.
+     */
+    synchronized void nextRound() {
+        previousIpv4 = currentIpv4;
+        currentIpv4 = new Int2ObjectHashMap<InetAddress>();
+        previousIpv6 = currentIpv6;
+        currentIpv6 = new Long2ObjectHashMap<Long2ObjectHashMap<InetAddress>>();
+    }
+
+    private InetAddress getIpv4(int packed) throws UnknownHostException {
+        InetAddress address = currentIpv4.get(packed);
+        if (address == null) {
+            address = previousIpv4.get(packed);
+            if (address == null) {
+                byte[] bytes = new byte[IPV4_OCTETS];
+                for (int i = 0; i < IPV4_OCTETS; i++) {
+                    int shift = BYTE_BITS * (IPV4_OCTETS - 1 - i);
+                    bytes[i] = (byte) ((packed >> shift) & BYTE_MASK);
+                }
+                address = InetAddress.getByAddress(bytes);
+            }
+            currentIpv4.put(packed, address);
+        }
+        return address;
+    }
+
+    private InetAddress getIpv6(long high, long low) throws UnknownHostException {
+        InetAddress address = get(currentIpv6, high, low);
+        if (address == null) {
+            address = get(previousIpv6, high, low);
+            if (address == null) {
+                byte[] bytes = new byte[2 * Long.SIZE / BYTE_BITS];
+                for (int i = 0; i < Long.SIZE / BYTE_BITS; i++) {
+                    int shift = Long.SIZE - BYTE_BITS * (i + 1);
+                    bytes[i] = (byte) ((high >>> shift) & BYTE_MASK);
+                    bytes[i + Long.SIZE / BYTE_BITS] = (byte) ((low >>> shift) & BYTE_MASK);
+                }
+                address = InetAddress.getByAddress(bytes);
+            }
+            Long2ObjectHashMap<InetAddress> lows = currentIpv6.get(high);
+            if (lows == null) {
+                lows = new Long2ObjectHashMap<InetAddress>();
+                currentIpv6.put(high, lows);
+            }
+            lows.put(low, address);
+        }
+        return address;
+    }
+
+    private static InetAddress get(Long2ObjectHashMap<Long2ObjectHashMap<InetAddress>> map, long high, long low) {
+        Long2ObjectHashMap<InetAddress> lows = map.get(high);
+        return lows == null ? null : lows.get(low);
+    }
+
+    /**
+     * Packs a dotted-decimal IPv4 literal into the lower 32 bits of the result.
+     *
+     * @return the packed address or {@code -1} if {@code ip} is not an IPv4 literal
+     */
+    static long parseIpv4(String ip) {
+        long packed = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c == '.') {
+                if (octet < 0 || dots == IPV4_OCTETS - 1) {
+                    return -1;
+                }
+                packed = (packed << BYTE_BITS) | octet;
+                octet = -1;
+                dots++;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * DECIMAL_RADIX) + (c - '0');
+                if (octet > MAX_OCTET) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        if (octet < 0 || dots != IPV4_OCTETS - 1) {
+            return -1;
+        }
+        return (packed << BYTE_BITS) | octet;
+    }
+
+    /**
+     * Packs a hexadecimal IPv6 literal (with optional "::" compression) into {@link #ipv6}. Literals with a zone or with
+     * an embedded IPv4 part are not supported and are left to {@link InetAddress#getByName(String)}.
+     */
+    private boolean parseIpv6(String ip) {
+        int gap = ip.indexOf("::");
+        if (gap < 0) {
+            if (parseGroups(ip, 0, ip.length(), 0) != IPV6_GROUPS) {
+                return false;
+            }
+        } else {
+            if (ip.indexOf("::", gap + 1) >= 0) {
+                return false;
+            }
+            int head = parseGroups(ip, 0, gap, 0);
+            int tail = head < 0 ? -1 : parseGroups(ip, gap + 2, ip.length(), head);
+            if (tail < 0 || head + tail >= IPV6_GROUPS) {
+                return false;
+            }
+            System.arraycopy(groups, head, groups, IPV6_GROUPS - tail, tail);
+            Arrays.fill(groups, head, IPV6_GROUPS - tail, 0);
+        }
+        ipv6[0] = 0;
+        ipv6[1] = 0;
+        for (int i = 0; i < IPV6_GROUPS; i++) {
+            int half = i / IPV6_GROUPS_PER_LONG;
+            ipv6[half] = (ipv6[half] << GROUP_BITS) | groups[i];
+        }
+        return true;
+    }
+
+    /**
+     * Parses the colon-separated hexadecimal groups of {@code ip} between {@code from} and {@code to} into {@link #groups}
+     * starting at {@code offset}.
+     *
+     * @return the number of groups parsed or {@code -1} if the range is not a valid list of groups
+     */
+    private int parseGroups(String ip, int from, int to, int offset) {
+        if (from == to) {
+            return 0;
+        }
+        int count = 0;
+        int group = 0;
+        int digits = 0;
+        for (int i = from; i <= to; i++) {
+            if (i == to || ip.charAt(i) == ':') {
+                if (digits == 0 || offset + count == IPV6_GROUPS) {
+                    return -1;
+                }
+                groups[offset + count++] = group;
+                group = 0;
+                digits = 0;
+            } else {
+                int digit = Character.digit(ip.charAt(i), HEX_RADIX);
+                if (digit < 0 || ++digits > MAX_GROUP_DIGITS) {
+                    return -1;
+                }
+                group = (group << (GROUP_BITS / MAX_GROUP_DIGITS)) | digit;
+            }
+        }
+        return count;
+    }
+}
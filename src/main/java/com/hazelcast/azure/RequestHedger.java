@@ -0,0 +1,209 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedges idempotent GET requests: if a request has not completed within the configured percentile of the recently observed
+ * latencies, a duplicate request is sent and whichever completes first is used.
+ * <p>
+ * Hedges are limited by a budget, so that a slow or throttling service does not receive more than the configured share of
+ * additional requests: every request earns {@code budgetPercent / 100} of a hedge, and at most {@link #MAX_BUDGET} hedges can
+ * be saved up. No request is hedged until {@link #MIN_SAMPLES} latencies have been observed.
+ */
+final class RequestHedger {
+    static final int MIN_SAMPLES = 16;
+    static final double MAX_BUDGET = 10;
+
+    private static final ILogger LOGGER = Logger.getLogger(RequestHedger.class);
+
+    private static final int SAMPLES = 128;
+    private static final double PERCENT = 100;
+
+    private final String name;
+    private final double percentile;
+    private final double budgetPerRequest;
+    private final ExecutorService executor;
+
+    private final long[] latencies = new long[SAMPLES];
+    private int latencyCount;
+    private int nextLatency;
+    private double budget;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * @param name          name of the hedged service, used in the log messages and the thread names
+     * @param percentile    percentile of the recent latencies after which a request is hedged, 1 - 99
+     * @param budgetPercent maximum hedges in percent of the requests
+     */
+    RequestHedger(String name, int percentile, int budgetPercent) {
+        this.name = name;
+        this.percentile = percentile / PERCENT;
+        this.budgetPerRequest = budgetPercent / PERCENT;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "hz.azure.RequestHedger." + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns a hedger configured by the {@link AzureProperties#HEDGE_PERCENTILE} and
+     * {@link AzureProperties#HEDGE_BUDGET_PERCENT} properties, or {@code null} if hedging is disabled.
+     */
+    static RequestHedger createOrNull(String name, AzureConfig azureConfig) {
+        if (azureConfig.getHedgePercentile() <= 0) {
+            return null;
+        }
+        return new RequestHedger(name, azureConfig.getHedgePercentile(), azureConfig.getHedgeBudgetPercent());
+    }
+
+    /**
+     * Stops the threads of the pending requests.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Executes the {@code request}, and a duplicate of it if it is slow and the budget allows.
+     *
+     * @return the result of the first successful execution
+     * @throws Exception the failure of the last execution if none succeeds
+     */
+    <T> T execute(Callable<T> request)
+            throws Exception {
+        requests.incrementAndGet();
+        long delayNanos = hedgeDelayNanos();
+        long start = System.nanoTime();
+        if (delayNanos < 0) {
+            T result = request.call();
+            recordLatency(System.nanoTime() - start);
+            return result;
+        }
+        CompletionService<T> completionService = new ExecutorCompletionService<T>(executor);
+        Future<T> primary = completionService.submit(request);
+        Future<T> done = completionService.poll(delayNanos, TimeUnit.NANOSECONDS);
+        if (done != null) {
+            recordLatency(System.nanoTime() - start);
+            return getResult(done);
+        }
+        if (!tryHedge()) {
+            T result = getResult(primary);
+            recordLatency(System.nanoTime() - start);
+            return result;
+        }
+        LOGGER.fine(String.format("Hedging %s request pending for %s ms, %s", name,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), this));
+        Future<T> hedge = completionService.submit(request);
+        return firstSuccessful(completionService, primary, hedge, start);
+    }
+
+    private <T> T firstSuccessful(CompletionService<T> completionService, Future<T> primary, Future<T> hedge, long start)
+            throws Exception {
+        Future<T> winner = completionService.take();
+        Future<T> other = winner == primary ? hedge : primary;
+        T result;
+        try {
+            result = getResult(winner);
+            other.cancel(true);
+        } catch (Exception e) {
+            LOGGER.finest(String.format("%s request failed, waiting for the other one", name), e);
+            winner = other;
+            result = getResult(winner);
+        }
+        recordLatency(System.nanoTime() - start);
+        if (winner == hedge) {
+            hedgeWins.incrementAndGet();
+            LOGGER.fine(String.format("Hedged %s request won, %s", name, this));
+        }
+        return result;
+    }
+
+    private synchronized boolean tryHedge() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    private synchronized long hedgeDelayNanos() {
+        budget = Math.min(MAX_BUDGET, budget + budgetPerRequest);
+        if (latencyCount < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(sorted.length * percentile))];
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[nextLatency] = nanos;
+        nextLatency = (nextLatency + 1) % SAMPLES;
+        latencyCount = Math.min(SAMPLES, latencyCount + 1);
+    }
+
+    private static <T> T getResult(Future<T> future)
+            throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    long getRequests() {
+        return requests.get();
+    }
+
+    long getHedges() {
+        return hedges.get();
+    }
+
+    long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    @Override
+    public String toString() {
+        long requestCount = requests.get();
+        long hedgeCount = hedges.get();
+        return String.format("RequestHedger{name=%s, requests=%s, hedges=%s, hedgeRate=%.2f%%, hedgeWins=%s}", name,
+                requestCount, hedgeCount, requestCount == 0 ? 0 : hedgeCount * PERCENT / requestCount, hedgeWins.get());
+    }
+}
@@ -15,28 +15,47 @@
 
 package com.hazelcast.azure;
 
-import java.io.DataOutputStream;
+import com.hazelcast.internal.json.Json;
+import com.hazelcast.internal.json.JsonValue;
+
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Scanner;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Utility class for making REST calls.
  */
 final class RestClient {
-    private static final Logger LOGGER = Logger.getLogger(RestClient.class.getSimpleName());
+    /**
+     * Timeout of establishing a connection, applied by every {@link HttpTransport}.
+     */
+    static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    /**
+     * Timeout of waiting for the response, applied by every {@link HttpTransport}.
+     */
+    static final int READ_TIMEOUT_MILLIS = 10000;
 
     private static final int HTTP_OK = 200;
+    private static final int HTTP_MULTIPLE_CHOICES = 300;
+    private static final int HTTP_NOT_MODIFIED = 304;
 
     private final String url;
     private final Map<String, String> headers = new LinkedHashMap<String, String>();
     private String body;
+    private boolean digestResponse;
+    private String responseEtag;
+    private String responseDate;
+    private byte[] responseDigest;
+    private HttpTransport transport = HttpTransports.defaultTransport();
+    private RequestHedger hedger;
 
     private RestClient(String url) {
         this.url = url;
@@ -46,13 +65,18 @@ final class RestClient {
         return new RestClient(url);
     }
 
+    private static JsonValue readJson(InputStream stream)
+            throws IOException {
+        return Json.parse(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+
     private static String read(InputStream stream) {
         if (stream == null) {
             return "";
         }
         Scanner scanner = new Scanner(stream, "UTF-8");
         scanner.useDelimiter("\\Z");
-        return scanner.next();
+        return scanner.hasNext() ? scanner.next() : "";
     }
 
     RestClient withHeader(String key, String value) {
@@ -60,77 +84,185 @@ final class RestClient {
         return this;
     }
 
+    /**
+     * Sends the request with the given {@code transport} instead of {@link HttpTransports#defaultTransport()}.
+     */
+    RestClient withTransport(HttpTransport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Hedges the request with the given {@code hedger}, if it is not {@code null}. Only GET requests are hedged.
+     */
+    RestClient withHedging(RequestHedger hedger) {
+        this.hedger = hedger;
+        return this;
+    }
+
     RestClient withBody(String body) {
         this.body = body;
         return this;
     }
 
+    /**
+     * Computes the SHA-256 digest of the response body while it is read, see {@link #getResponseDigest()}.
+     */
+    RestClient withResponseDigest() {
+        this.digestResponse = true;
+        return this;
+    }
+
+    /**
+     * Returns the response body, or {@code null} if the request has an "If-None-Match" header and the server answered with
+     * "304 Not Modified".
+     */
     String get() {
-        return call("GET");
+        return call("GET", RestClient::read);
+    }
+
+    /**
+     * Parses the response body while it is received, without reading it into a string first.
+     *
+     * @return the parsed response body, or {@code null} if the request has an "If-None-Match" header and the server answered
+     * with "304 Not Modified"
+     */
+    JsonValue getJson() {
+        return call("GET", RestClient::readJson);
     }
 
     String post() {
-        return call("POST");
+        return call("POST", RestClient::read);
     }
 
-    private String call(String method) {
-        HttpURLConnection connection = null;
-        DataOutputStream outputStream = null;
-        try {
-            URL urlToConnect = new URL(url);
-            connection = (HttpURLConnection) urlToConnect.openConnection();
-            connection.setRequestMethod(method);
-            for (Map.Entry<String, String> header : headers.entrySet()) {
-                connection.setRequestProperty(header.getKey(), header.getValue());
-            }
-            if (body != null) {
-                byte[] bodyData = body.getBytes("UTF-8");
+    String put() {
+        return call("PUT", RestClient::read);
+    }
 
-                connection.setDoOutput(true);
-                connection.setRequestProperty("charset", "utf-8");
-                connection.setRequestProperty("Content-Length", Integer.toString(bodyData.length));
+    String delete() {
+        return call("DELETE", RestClient::read);
+    }
 
-                outputStream = new DataOutputStream(connection.getOutputStream());
-                outputStream.write(bodyData);
-                outputStream.flush();
-            }
+    /**
+     * Returns the "ETag" header of the response, if any.
+     */
+    String getResponseEtag() {
+        return responseEtag;
+    }
+
+    /**
+     * Returns the "Date" header of the response, i.e. the time of the server, if any.
+     */
+    String getResponseDate() {
+        return responseDate;
+    }
+
+    /**
+     * Returns the digest of the response body if it was requested with {@link #withResponseDigest()}.
+     */
+    byte[] getResponseDigest() {
+        return responseDigest;
+    }
 
-            checkHttpOk(method, connection);
-            return read(connection.getInputStream());
+    private <T> T call(String method, ResponseReader<T> reader) {
+        try {
+            Response<T> response = hedger != null && "GET".equals(method)
+                    ? hedger.execute(() -> execute(method, reader))
+                    : execute(method, reader);
+            responseEtag = response.etag;
+            responseDate = response.date;
+            responseDigest = response.digest;
+            return response.body;
         } catch (RestClientException e) {
             throw e;
         } catch (Exception e) {
             throw new RestClientException("Failure in executing REST call", e);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
+        }
+    }
+
+    private <T> Response<T> execute(String method, ResponseReader<T> reader)
+            throws Exception {
+        Map<String, String> requestHeaders = new LinkedHashMap<String, String>();
+        requestHeaders.put("Accept-Encoding", "gzip, deflate");
+        requestHeaders.putAll(headers);
+        byte[] bodyData = body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+        try (HttpTransport.Response response = transport.send(method, url, requestHeaders, bodyData)) {
+            if (response.getStatus() == HTTP_NOT_MODIFIED && headers.containsKey("If-None-Match")) {
+                return new Response<T>(null, null, null, null);
             }
-            if (outputStream != null) {
-                try {
-                    outputStream.close();
-                } catch (IOException e) {
-                    LOGGER.log(Level.FINEST, "Error while closing HTTP output stream", e);
-                }
+            checkHttpOk(method, response);
+            String etag = response.getHeader("ETag");
+            String date = response.getHeader("Date");
+            InputStream stream = decode(response);
+            if (!digestResponse) {
+                return new Response<T>(reader.read(stream), etag, date, null);
             }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            T result = reader.read(new DigestInputStream(stream, digest));
+            return new Response<T>(result, etag, date, digest.digest());
         }
     }
 
-    private void checkHttpOk(String method, HttpURLConnection connection)
+    /**
+     * Accepts any 2xx status, e.g. "201 Created" of a PUT request.
+     */
+    private void checkHttpOk(String method, HttpTransport.Response response)
             throws IOException {
-        if (connection.getResponseCode() != HTTP_OK) {
+        if (response.getStatus() < HTTP_OK || response.getStatus() >= HTTP_MULTIPLE_CHOICES) {
             String errorMessage;
             try {
-                errorMessage = read(connection.getErrorStream());
+                errorMessage = read(decode(response));
             } catch (Exception e) {
                 throw new RestClientException(
-                        String.format("Failure executing: %s at: %s", method, url), connection.getResponseCode());
+                        String.format("Failure executing: %s at: %s", method, url), response.getStatus());
             }
             throw new RestClientException(String.format("Failure executing: %s at: %s. Message: %s", method, url, errorMessage),
-                    connection.getResponseCode());
+                    response.getStatus());
 
         }
     }
 
+    /**
+     * Decompresses the response body on the fly according to the "Content-Encoding" of the response.
+     */
+    private static InputStream decode(HttpTransport.Response response)
+            throws IOException {
+        InputStream stream = response.getBody();
+        if (stream == null) {
+            return null;
+        }
+        String encoding = response.getHeader("Content-Encoding");
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            return new GZIPInputStream(stream);
+        }
+        if ("deflate".equalsIgnoreCase(encoding)) {
+            return new InflaterInputStream(stream);
+        }
+        return stream;
+    }
 
+    /**
+     * Response of a single execution of the request.
+     */
+    private static final class Response<T> {
+        private final T body;
+        private final String etag;
+        private final String date;
+        private final byte[] digest;
 
+        private Response(T body, String etag, String date, byte[] digest) {
+            this.body = body;
+            this.etag = etag;
+            this.date = date;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * Reads the response body from the stream.
+     */
+    private interface ResponseReader<T> {
+        T read(InputStream stream)
+                throws IOException;
+    }
 }
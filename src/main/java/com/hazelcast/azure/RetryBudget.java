@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+/**
+ * Limits the number of retries, so that retries do not multiply the load on a failing Azure API during an incident.
+ * <p>
+ * Every call deposits {@code ratio} of a retry and every retry withdraws one. In addition, {@code minPerSecond} retries are
+ * deposited every second, so that rarely executed calls can still be retried. At most {@code capacity} retries can be
+ * saved up.
+ */
+final class RetryBudget {
+    private static final double NANOS_IN_SECOND = 1e9;
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double capacity;
+
+    private double balance;
+    private long lastRefillNanos;
+
+    RetryBudget(double ratio, double minPerSecond, double capacity) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.capacity = capacity;
+        this.balance = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized void deposit() {
+        refill();
+        balance = Math.min(capacity, balance + ratio);
+    }
+
+    /**
+     * Withdraws one retry.
+     *
+     * @return {@code false} if the budget is exhausted and the call must not be retried
+     */
+    synchronized boolean tryWithdraw() {
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(capacity, balance + (now - lastRefillNanos) / NANOS_IN_SECOND * minPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import java.io.IOException;
+
+/**
+ * Defines how a call type is retried by {@link RetryUtils}: how many times, with which backoff and within which time budget,
+ * and which failures are worth retrying at all.
+ * <p>
+ * The backoff uses "full jitter": the wait before the n-th retry is a random value between zero and
+ * {@code min(maxBackoffMs, initialBackoffMs * 2^(n-1))}, so that members failing at the same time do not retry in lockstep.
+ * <p>
+ * Only transient failures are retried: I/O errors and the HTTP status codes 408, 429 and 5xx. Other HTTP errors, like
+ * 400 Bad Request or 401/403 authorization failures, never succeed on a retry and fail immediately.
+ */
+final class RetryPolicy {
+    private static final int HTTP_REQUEST_TIMEOUT = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_GONE = 410;
+    private static final int MAX_SHIFT = 30;
+
+    private static final long METADATA_INITIAL_BACKOFF_MS = 500;
+    private static final long METADATA_MAX_BACKOFF_MS = 5000;
+    private static final long METADATA_BUDGET_MS = 15000;
+    private static final long LIST_INITIAL_BACKOFF_MS = 500;
+    private static final long LIST_MAX_BACKOFF_MS = 4000;
+    private static final long LIST_BUDGET_MS = 8000;
+
+    private final int retries;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long budgetMs;
+    private final int[] additionalRetryableCodes;
+
+    RetryPolicy(int retries, long initialBackoffMs, long maxBackoffMs, long budgetMs, int... additionalRetryableCodes) {
+        this.retries = retries;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.budgetMs = budgetMs;
+        this.additionalRetryableCodes = additionalRetryableCodes;
+    }
+
+    /**
+     * Policy for the Azure Instance Metadata Service calls which read the instance metadata.
+     */
+    static RetryPolicy metadata() {
+        return new RetryPolicy(3, METADATA_INITIAL_BACKOFF_MS, METADATA_MAX_BACKOFF_MS, METADATA_BUDGET_MS);
+    }
+
+    /**
+     * Policy for the access token calls. The managed identity endpoint of the Azure Instance Metadata Service answers with
+     * 404 and 410 while the identity is being assigned, so these are retried as well.
+     */
+    static RetryPolicy token() {
+        return new RetryPolicy(3, METADATA_INITIAL_BACKOFF_MS, METADATA_MAX_BACKOFF_MS, METADATA_BUDGET_MS,
+                HTTP_NOT_FOUND, HTTP_GONE);
+    }
+
+    /**
+     * Policy for the Azure Resource Manager list calls of a discovery round, which is short since the next discovery round
+     * retries anyway.
+     */
+    static RetryPolicy list() {
+        return new RetryPolicy(2, LIST_INITIAL_BACKOFF_MS, LIST_MAX_BACKOFF_MS, LIST_BUDGET_MS);
+    }
+
+    int getRetries() {
+        return retries;
+    }
+
+    long getBudgetMs() {
+        return budgetMs;
+    }
+
+    /**
+     * Returns the wait before the {@code retryCount}-th retry for a {@code random} value in [0, 1).
+     */
+    long backoffMs(int retryCount, double random) {
+        long exponentialMs = initialBackoffMs << Math.min(MAX_SHIFT, retryCount - 1);
+        long capMs = exponentialMs <= 0 ? maxBackoffMs : Math.min(maxBackoffMs, exponentialMs);
+        return (long) (capMs * random);
+    }
+
+    /**
+     * Returns {@code true} if {@code e}, or any of its causes, is a transient failure.
+     */
+    boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientException && ((RestClientException) cause).getHttpErrorCode() != 0) {
+                return isRetryable(((RestClientException) cause).getHttpErrorCode());
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isRetryable(int httpErrorCode) {
+        if (httpErrorCode == HTTP_REQUEST_TIMEOUT || httpErrorCode == HTTP_TOO_MANY_REQUESTS
+                || httpErrorCode >= HTTP_INTERNAL_ERROR) {
+            return true;
+        }
+        for (int code : additionalRetryableCodes) {
+            if (code == httpErrorCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
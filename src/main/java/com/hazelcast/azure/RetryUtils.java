@@ -21,58 +21,58 @@ import com.hazelcast.logging.Logger;
 import com.hazelcast.internal.util.ExceptionUtil;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Static utility class to retry operations.
+ * <p>
+ * All retries in the JVM share one {@link RetryBudget}, which allows retrying 20% of the calls, plus one retry per second.
  */
 final class RetryUtils {
-    static final long INITIAL_BACKOFF_MS = 1500L;
-    static final double BACKOFF_MULTIPLIER = 1.5;
-    private static final long MAX_BACKOFF_MS = 5 * 60 * 1000L;
+    private static final double RETRY_BUDGET_RATIO = 0.2;
+    private static final double RETRY_BUDGET_MIN_PER_SECOND = 1;
+    private static final double RETRY_BUDGET_CAPACITY = 10;
+    private static final RetryBudget RETRY_BUDGET = new RetryBudget(RETRY_BUDGET_RATIO, RETRY_BUDGET_MIN_PER_SECOND,
+            RETRY_BUDGET_CAPACITY);
 
     private static final ILogger LOGGER = Logger.getLogger(RetryUtils.class);
 
-    private static final long MS_IN_SECOND = 1000L;
-
     private RetryUtils() {
     }
 
     /**
-     * Calls {@code callable.call()} until it does not throw an exception (but no more than {@code retries} times).
+     * Calls {@code callable.call()} until it does not throw an exception, as long as the failure is retryable and neither
+     * the retries and the time budget of the {@code policy} nor the JVM-wide retry budget are exhausted.
      * <p>
      * Note that {@code callable} should be an idempotent operation.
      * <p>
-     * If {@code callable} throws an unchecked exception, it is wrapped into {@link HazelcastException}.
+     * If {@code callable} throws a checked exception, it is wrapped into {@link HazelcastException}.
      */
-    static <T> T retry(Callable<T> callable, int retries) {
+    static <T> T retry(Callable<T> callable, RetryPolicy policy) {
+        RETRY_BUDGET.deposit();
+        long deadlineMs = System.currentTimeMillis() + policy.getBudgetMs();
         int retryCount = 0;
         while (true) {
             try {
                 return callable.call();
             } catch (Exception e) {
                 retryCount++;
-                if (retryCount > retries) {
+                long waitIntervalMs = policy.backoffMs(retryCount, ThreadLocalRandom.current().nextDouble());
+                if (retryCount > policy.getRetries() || !policy.isRetryable(e)
+                        || System.currentTimeMillis() + waitIntervalMs > deadlineMs) {
+                    throw ExceptionUtil.rethrow(e);
+                }
+                if (!RETRY_BUDGET.tryWithdraw()) {
+                    LOGGER.warning("Too many retries of Azure API calls in this JVM, not retrying");
                     throw ExceptionUtil.rethrow(e);
                 }
-                long waitIntervalMs = backoffIntervalForRetry(retryCount);
-                LOGGER.warning(String.format("Couldn't connect to the service, [%s] retrying in %s seconds...", retryCount,
-                        waitIntervalMs / MS_IN_SECOND));
+                LOGGER.warning(String.format("Couldn't connect to the service, [%s] retrying in %s ms...", retryCount,
+                        waitIntervalMs));
                 sleep(waitIntervalMs);
             }
         }
     }
 
-    private static long backoffIntervalForRetry(int retryCount) {
-        long result = INITIAL_BACKOFF_MS;
-        for (int i = 1; i < retryCount; i++) {
-            result *= BACKOFF_MULTIPLIER;
-            if (result > MAX_BACKOFF_MS) {
-                return MAX_BACKOFF_MS;
-            }
-        }
-        return result;
-    }
-
     private static void sleep(long millis) {
         try {
             Thread.sleep(millis);
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deduplicates strings parsed from Azure API responses, so that the values repeated across discovery rounds share one
+ * instance. Only the strings seen in the current and in the previous round are retained.
+ */
+final class StringInterner {
+    private Map<String, String> previous = new HashMap<String, String>();
+    private Map<String, String> current = new HashMap<String, String>();
+
+    synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String interned = current.get(value);
+        if (interned == null) {
+            interned = previous.get(value);
+            if (interned == null) {
+                interned = value;
+            }
+            current.put(interned, interned);
+        }
+        return interned;
+    }
+
+    /**
+     * Forgets the strings which were not seen since the last call.
+     */
+    synchronized void nextRound() {
+        previous = current;
+        current = new HashMap<String, String>(previous.size());
+    }
+}
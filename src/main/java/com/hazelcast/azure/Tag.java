@@ -16,11 +16,13 @@
 package com.hazelcast.azure;
 
 import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.internal.json.JsonObject;
+import com.hazelcast.internal.json.JsonValue;
 
 /**
  * Represents a Azure Tag (key and value).
  */
-final class Tag {
+final class Tag implements TagFilter {
     private final String key;
     private final String value;
 
@@ -49,6 +51,12 @@ final class Tag {
         return value;
     }
 
+    @Override
+    public boolean matches(JsonObject tags) {
+        JsonValue tagValue = tags.get(key);
+        return tagValue != null && tagValue.isString() && value.equals(tagValue.asString());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
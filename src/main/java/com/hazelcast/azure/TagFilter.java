@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.hazelcast.internal.json.JsonObject;
+
+/**
+ * Predicate on the tags of an Azure resource, compiled once from the {@link AzureProperties#TAG_EXPRESSION} specification
+ * by {@link TagFilterParser}. The legacy {@link AzureProperties#TAG} "key=value" is not parsed as an expression, since its
+ * value may contain whitespace, quotes and parentheses: it becomes a {@link Tag}, which matches like the expression
+ * {@code key = 'value'}.
+ */
+interface TagFilter {
+
+    /**
+     * Evaluates the filter against the {@code tags} object of an Azure resource as returned by the Azure API.
+     * <p>
+     * Implementations must not allocate, since the filter is evaluated for every resource in every discovery round.
+     */
+    boolean matches(JsonObject tags);
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.internal.json.JsonObject;
+import com.hazelcast.internal.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles tag filter expressions into a {@link TagFilter} tree.
+ * <p>
+ * Grammar (keywords are case-insensitive):
+ * <pre>
+ * expression := and ( OR and )*
+ * and        := unary ( AND unary )*
+ * unary      := NOT unary | '(' expression ')' | condition
+ * condition  := key '=' value | key '!=' value | key IN '(' value ( ',' value )* ')'
+ * </pre>
+ * Keys and values containing whitespace or any of the {@code =!(),} characters must be quoted with {@code '} or {@code "}.
+ * <p>
+ * Example: {@code env=prod AND role in (data,cp) AND NOT drain=true}
+ * <p>
+ * Expressions are configured with {@link AzureProperties#TAG_EXPRESSION}. The {@link AzureProperties#TAG} specification is
+ * always a single {@link Tag}, so the existing "key=value" configurations keep their meaning.
+ */
+final class TagFilterParser {
+    private final String spec;
+    private final List<String> tokens;
+    private int position;
+
+    private TagFilterParser(String spec) {
+        this.spec = spec;
+        this.tokens = tokenize(spec);
+    }
+
+    /**
+     * Parses the {@code spec} into a {@link TagFilter}.
+     *
+     * @throws InvalidConfigurationException if the {@code spec} is not a valid tag filter expression
+     */
+    static TagFilter parse(String spec) {
+        TagFilterParser parser = new TagFilterParser(spec);
+        TagFilter filter = parser.parseExpression();
+        if (parser.hasNext()) {
+            throw parser.invalid(String.format("unexpected '%s'", parser.next()));
+        }
+        return filter;
+    }
+
+    private TagFilter parseExpression() {
+        TagFilter left = parseAnd();
+        while (nextIsKeyword("or")) {
+            next();
+            left = new Or(left, parseAnd());
+        }
+        return left;
+    }
+
+    private TagFilter parseAnd() {
+        TagFilter left = parseUnary();
+        while (nextIsKeyword("and")) {
+            next();
+            left = new And(left, parseUnary());
+        }
+        return left;
+    }
+
+    private TagFilter parseUnary() {
+        if (nextIsKeyword("not")) {
+            next();
+            return new Not(parseUnary());
+        }
+        if (nextIs("(")) {
+            next();
+            TagFilter filter = parseExpression();
+            expect(")");
+            return filter;
+        }
+        return parseCondition();
+    }
+
+    private TagFilter parseCondition() {
+        String key = word();
+        if (nextIs("=")) {
+            next();
+            return new Tag(key, word());
+        }
+        if (nextIs("!=")) {
+            next();
+            return new Not(new Tag(key, word()));
+        }
+        if (nextIsKeyword("in")) {
+            next();
+            expect("(");
+            List<String> values = new ArrayList<String>();
+            values.add(word());
+            while (nextIs(",")) {
+                next();
+                values.add(word());
+            }
+            expect(")");
+            return new In(key, values.toArray(new String[0]));
+        }
+        throw invalid(String.format("expected '=', '!=' or 'in' after '%s'", key));
+    }
+
+    private String word() {
+        if (!hasNext() || isOperator(tokens.get(position))) {
+            throw invalid("expected a tag key or value");
+        }
+        return unquote(next());
+    }
+
+    private void expect(String token) {
+        if (!nextIs(token)) {
+            throw invalid(String.format("expected '%s'", token));
+        }
+        next();
+    }
+
+    private boolean hasNext() {
+        return position < tokens.size();
+    }
+
+    private String next() {
+        return tokens.get(position++);
+    }
+
+    private boolean nextIs(String token) {
+        return hasNext() && tokens.get(position).equals(token);
+    }
+
+    private boolean nextIsKeyword(String keyword) {
+        return hasNext() && tokens.get(position).equalsIgnoreCase(keyword);
+    }
+
+    private InvalidConfigurationException invalid(String reason) {
+        return new InvalidConfigurationException(String.format("Invalid tag specification: '%s', %s", spec, reason));
+    }
+
+    private static boolean isOperator(String token) {
+        return "=".equals(token) || "!=".equals(token) || "(".equals(token) || ")".equals(token) || ",".equals(token);
+    }
+
+    private static String unquote(String token) {
+        char first = token.charAt(0);
+        if (first == '\'' || first == '"') {
+            return token.substring(1, token.length() - 1);
+        }
+        return token;
+    }
+
+    private static List<String> tokenize(String spec) {
+        List<String> tokens = new ArrayList<String>();
+        int i = 0;
+        while (i < spec.length()) {
+            char c = spec.charAt(i);
+            int end;
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            } else if (c == '!' && i + 1 < spec.length() && spec.charAt(i + 1) == '=') {
+                end = i + 2;
+            } else if ("()=,".indexOf(c) >= 0) {
+                end = i + 1;
+            } else if (c == '\'' || c == '"') {
+                end = quotedEnd(spec, i);
+            } else {
+                end = wordEnd(spec, i);
+            }
+            tokens.add(spec.substring(i, end));
+            i = end;
+        }
+        return tokens;
+    }
+
+    private static int quotedEnd(String spec, int start) {
+        int end = spec.indexOf(spec.charAt(start), start + 1);
+        if (end < 0) {
+            throw new InvalidConfigurationException(String.format("Invalid tag specification: '%s', unterminated quote", spec));
+        }
+        return end + 1;
+    }
+
+    private static int wordEnd(String spec, int start) {
+        int end = start;
+        while (end < spec.length() && !Character.isWhitespace(spec.charAt(end)) && "()=,!".indexOf(spec.charAt(end)) < 0) {
+            end++;
+        }
+        if (end == start) {
+            throw new InvalidConfigurationException(
+                    String.format("Invalid tag specification: '%s', unexpected '%s'", spec, spec.charAt(start)));
+        }
+        return end;
+    }
+
+    /**
+     * Matches if the tag value is any of the listed values.
+     */
+    static final class In implements TagFilter {
+        private final String key;
+        private final String[] values;
+
+        In(String key, String[] values) {
+            this.key = key;
+            this.values = values;
+        }
+
+        @Override
+        public boolean matches(JsonObject tags) {
+            JsonValue value = tags.get(key);
+            if (value == null || !value.isString()) {
+                return false;
+            }
+            String actual = value.asString();
+            for (String expected : values) {
+                if (expected.equals(actual)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Matches if both filters match.
+     */
+    static final class And implements TagFilter {
+        private final TagFilter left;
+        private final TagFilter right;
+
+        And(TagFilter left, TagFilter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean matches(JsonObject tags) {
+            return left.matches(tags) && right.matches(tags);
+        }
+    }
+
+    /**
+     * Matches if any of the filters matches.
+     */
+    static final class Or implements TagFilter {
+        private final TagFilter left;
+        private final TagFilter right;
+
+        Or(TagFilter left, TagFilter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean matches(JsonObject tags) {
+            return left.matches(tags) || right.matches(tags);
+        }
+    }
+
+    /**
+     * Matches if the negated filter does not match.
+     */
+    static final class Not implements TagFilter {
+        private final TagFilter filter;
+
+        Not(TagFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean matches(JsonObject tags) {
+            return !filter.matches(tags);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * {@link HttpTransport} based on {@link HttpURLConnection}.
+ * <p>
+ * Closing a response closes its body instead of disconnecting, so the connection goes back to the keep-alive cache of the
+ * JVM and a request to the same host within its keep-alive timeout (about 5 seconds by default) skips the DNS lookup and the
+ * TCP and TLS handshakes. This helps the bursts of requests within a discovery round, not the consecutive rounds.
+ */
+final class UrlConnectionTransport
+        implements HttpTransport {
+
+    @Override
+    public Response send(String method, String url, Map<String, String> headers, byte[] body)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(RestClient.CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(RestClient.READ_TIMEOUT_MILLIS);
+            connection.setRequestMethod(method);
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("charset", "utf-8");
+                connection.setRequestProperty("Content-Length", Integer.toString(body.length));
+                try (OutputStream outputStream = connection.getOutputStream()) {
+                    outputStream.write(body);
+                    outputStream.flush();
+                }
+            }
+            connection.getResponseCode();
+            return new UrlConnectionResponse(connection);
+        } catch (IOException | RuntimeException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private static final class UrlConnectionResponse
+            implements Response {
+        private final HttpURLConnection connection;
+        private InputStream body;
+
+        private UrlConnectionResponse(HttpURLConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public int getStatus()
+                throws IOException {
+            return connection.getResponseCode();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return connection.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody()
+                throws IOException {
+            if (body == null) {
+                InputStream errorStream = connection.getErrorStream();
+                body = errorStream != null ? errorStream : connection.getInputStream();
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                getBody().close();
+            } catch (IOException e) {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -15,6 +15,10 @@
 
 package com.hazelcast.azure;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Locale;
+
 /**
  * Utility methods.
  */
@@ -50,4 +54,31 @@ final class Utils {
         }
         return false;
     }
+
+    /**
+     * Returns the ID of the network interface of an IP configuration ID, or {@code null} if the IP configuration does not
+     * belong to a network interface, e.g. to a load balancer or gateway. Azure resource IDs are case-insensitive.
+     */
+    static String networkInterfaceId(String ipConfigurationId) {
+        if (ipConfigurationId == null) {
+            return null;
+        }
+        String lowerCaseId = ipConfigurationId.toLowerCase(Locale.ROOT);
+        int end = lowerCaseId.indexOf("/ipconfigurations/");
+        if (end < 0 || !lowerCaseId.contains("/networkinterfaces/")) {
+            return null;
+        }
+        return ipConfigurationId.substring(0, end);
+    }
+
+    /**
+     * Encodes a query parameter value, with spaces encoded as "%20", which is accepted also in OData filters.
+     */
+    static String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+/**
+ * Selects the {@link HttpTransport} used by {@link RestClient} by default.
+ * <p>
+ * This is the Java 11 variant, packaged in {@code META-INF/versions/11} of the multi-release jar, which uses
+ * {@link JdkHttpTransport}.
+ */
+final class HttpTransports {
+    private static final HttpTransport DEFAULT = new JdkHttpTransport();
+
+    private HttpTransports() {
+    }
+
+    static HttpTransport defaultTransport() {
+        return DEFAULT;
+    }
+}
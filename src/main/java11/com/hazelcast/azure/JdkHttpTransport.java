@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * {@link HttpTransport} based on {@link HttpClient}.
+ * <p>
+ * All requests share one client, so the requests to the same host reuse its connections. Over TLS the client negotiates
+ * HTTP/2, which multiplexes the concurrent requests to Azure Resource Manager over a single connection. The plain HTTP
+ * requests, e.g. to the Instance Metadata Service, use HTTP/1.1. The request timeout bounds the wait for the response
+ * headers, like the read timeout of {@link UrlConnectionTransport} bounds the wait for the first byte.
+ */
+final class JdkHttpTransport
+        implements HttpTransport {
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(RestClient.CONNECT_TIMEOUT_MILLIS))
+            .build();
+
+    @Override
+    public Response send(String method, String url, Map<String, String> headers, byte[] body)
+            throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(RestClient.READ_TIMEOUT_MILLIS))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (!url.startsWith("https:")) {
+            // HTTP/2 over plain HTTP would add an h2c upgrade handshake to every request, e.g. to the Instance Metadata Service
+            request.version(HttpClient.Version.HTTP_1_1);
+        }
+        headers.forEach(request::header);
+        try {
+            return new JdkResponse(client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Interrupted while executing: %s at: %s", method, url));
+        }
+    }
+
+    private static final class JdkResponse
+            implements Response {
+        private final HttpResponse<InputStream> response;
+
+        private JdkResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.body();
+        }
+
+        @Override
+        public void close()
+                throws IOException {
+            response.body().close();
+        }
+    }
+}
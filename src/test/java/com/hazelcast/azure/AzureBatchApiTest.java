@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.hazelcast.internal.json.JsonObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.hazelcast.azure.AzureBatchApi.API_VERSION;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AzureBatchApiTest {
+    private static final String ACCESS_TOKEN = "access-token";
+    private static final String BATCH_URL = String.format("/batch?api-version=%s", API_VERSION);
+
+    private String endpoint;
+    private AzureBatchApi azureBatchApi;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Before
+    public void setUp() {
+        endpoint = String.format("http://localhost:%s", wireMockRule.port());
+        azureBatchApi = new AzureBatchApi(endpoint);
+    }
+
+    @Test
+    public void get() {
+        // given
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .withRequestBody(equalToJson("{\"requests\":["
+                        + "{\"name\":\"0\",\"httpMethod\":\"GET\",\"url\":\"/first?api-version=1\"},"
+                        + "{\"name\":\"1\",\"httpMethod\":\"GET\",\"url\":\"/second?api-version=1\"}]}"))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"name\":\"1\",\"httpStatusCode\":200,\"content\":{\"value\":\"second\"}},"
+                        + "{\"name\":\"0\",\"httpStatusCode\":200,\"content\":{\"value\":\"first\"}}]}")));
+
+        // when
+        List<JsonObject> result = azureBatchApi.get(asList(endpoint + "/first?api-version=1",
+                endpoint + "/second?api-version=1"), ACCESS_TOKEN);
+
+        // then
+        assertEquals("first", result.get(0).getString("value", null));
+        assertEquals("second", result.get(1).getString("value", null));
+    }
+
+    @Test
+    public void getUnchanged() {
+        // given
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"name\":\"0\",\"httpStatusCode\":200,\"headers\":{\"x-ms-request-id\":\"request-1\"},"
+                        + "\"content\":{\"value\":\"first\"}}]}")));
+        azureBatchApi.get(asList(endpoint + "/first"), ACCESS_TOKEN);
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"name\":\"0\",\"httpStatusCode\":200,\"headers\":{\"x-ms-request-id\":\"request-2\"},"
+                        + "\"content\":{\"value\":\"first\"}}]}")));
+
+        // when
+        List<JsonObject> result = azureBatchApi.get(asList(endpoint + "/first"), ACCESS_TOKEN);
+
+        // then
+        assertEquals(1, result.size());
+        assertNull(result.get(0));
+    }
+
+    @Test
+    public void getPartlyChanged() {
+        // given
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"name\":\"0\",\"httpStatusCode\":200,\"content\":{\"value\":\"first\"}},"
+                        + "{\"name\":\"1\",\"httpStatusCode\":200,\"content\":{\"value\":\"second\"}}]}")));
+        azureBatchApi.get(asList(endpoint + "/first", endpoint + "/second"), ACCESS_TOKEN);
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"name\":\"0\",\"httpStatusCode\":200,\"content\":{\"value\":\"first\"}},"
+                        + "{\"name\":\"1\",\"httpStatusCode\":200,\"content\":{\"value\":\"changed\"}}]}")));
+
+        // when
+        List<JsonObject> result = azureBatchApi.get(asList(endpoint + "/first", endpoint + "/second"), ACCESS_TOKEN);
+
+        // then
+        assertNull(result.get(0));
+        assertEquals("changed", result.get(1).getString("value", null));
+    }
+
+    @Test(expected = RestClientException.class)
+    public void getWhenBatchedRequestFails() {
+        // given
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"name\":\"0\",\"httpStatusCode\":403,\"content\":{\"error\":{}}}]}")));
+
+        // when
+        azureBatchApi.get(asList(endpoint + "/first"), ACCESS_TOKEN);
+
+        // then
+        // throw exception
+    }
+
+    @Test
+    public void getWhenBatchResponseUnusable() {
+        // given
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"name\":\"0\",\"httpStatusCode\":200,\"content\":{\"value\":\"first\"}},"
+                        + "{\"name\":\"7\",\"httpStatusCode\":200,\"content\":{\"value\":\"second\"}}]}")));
+        List<String> urls = asList(endpoint + "/first", endpoint + "/second");
+
+        // when
+        List<JsonObject> unknownName = azureBatchApi.get(urls, ACCESS_TOKEN);
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"httpStatusCode\":200,\"content\":{\"value\":\"first\"}}]}")));
+        List<JsonObject> missingName = azureBatchApi.get(urls, ACCESS_TOKEN);
+        stubFor(post(urlEqualTo(BATCH_URL))
+                .willReturn(aResponse().withStatus(200).withBody("{\"responses\":["
+                        + "{\"name\":\"0\",\"httpStatusCode\":200,\"content\":null}]}")));
+        List<JsonObject> nullContent = azureBatchApi.get(urls, ACCESS_TOKEN);
+
+        // then
+        assertNull(unknownName);
+        assertNull(missingName);
+        assertNull(nullContent);
+    }
+
+    @Test
+    public void getWhenBatchNotSupported() {
+        // given
+        stubFor(post(urlEqualTo(BATCH_URL)).willReturn(aResponse().withStatus(404)));
+
+        // when
+        List<JsonObject> result1 = azureBatchApi.get(asList(endpoint + "/first"), ACCESS_TOKEN);
+        List<JsonObject> result2 = azureBatchApi.get(asList(endpoint + "/first"), ACCESS_TOKEN);
+
+        // then
+        assertNull(result1);
+        assertNull(result2);
+        verify(1, postRequestedFor(urlEqualTo(BATCH_URL)));
+    }
+
+    @Test
+    public void getWhenBatchFailsTransiently() {
+        // given
+        stubFor(post(urlEqualTo(BATCH_URL)).willReturn(aResponse().withStatus(503)));
+
+        // when
+        azureBatchApi.get(asList(endpoint + "/first"), ACCESS_TOKEN);
+        List<JsonObject> result = azureBatchApi.get(asList(endpoint + "/first"), ACCESS_TOKEN);
+
+        // then
+        assertNull(result);
+        verify(2, postRequestedFor(urlEqualTo(BATCH_URL)));
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.deleteRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.hazelcast.azure.AzureBlobRegistry.API_VERSION;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class AzureBlobRegistryTest {
+    private static final String ACCESS_TOKEN = "access-token";
+    private static final String CONTAINER = "/hazelcast";
+    private static final String LIST = CONTAINER + "?restype=container&comp=list&include=metadata";
+    private static final int TTL_SECONDS = 60;
+
+    private AzureBlobRegistry registry;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Before
+    public void setUp() {
+        registry = new AzureBlobRegistry(String.format("http://localhost:%s%s/", wireMockRule.port(), CONTAINER), TTL_SECONDS,
+                () -> ACCESS_TOKEN);
+    }
+
+    @After
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    public void addresses() {
+        // given
+        long now = System.currentTimeMillis();
+        long expired = now - TimeUnit.SECONDS.toMillis(TTL_SECONDS + 1);
+        stubList(LIST, now, listing(null, blob("10.0.0.1", 5701, now), blob("10.0.0.2", 5701, expired),
+                "<Blob><Name>unregistered</Name></Blob>"));
+
+        // when
+        Collection<AzureAddress> result = registry.addresses();
+
+        // then
+        assertEquals(asList(address("10.0.0.1", 5701)), result);
+    }
+
+    @Test
+    public void addressesWithClockSkew() {
+        // given
+        long serverTime = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10);
+        long expired = serverTime - TimeUnit.SECONDS.toMillis(TTL_SECONDS + 1);
+        stubList(LIST, serverTime, listing(null, blob("10.0.0.1", 5701, serverTime), blob("10.0.0.2", 5701, expired)));
+
+        // when
+        Collection<AzureAddress> result = registry.addresses();
+
+        // then
+        assertEquals(asList(address("10.0.0.1", 5701)), result);
+    }
+
+    @Test
+    public void addressesWithMultiplePages() {
+        // given
+        long now = System.currentTimeMillis();
+        stubList(LIST, now, listing("page-2", blob("10.0.0.1", 5701, now)));
+        stubList(LIST + "&marker=page-2", now, listing(null, blob("10.0.0.2", 5702, now)));
+
+        // when
+        Collection<AzureAddress> result = registry.addresses();
+
+        // then
+        assertEquals(asList(address("10.0.0.1", 5701), address("10.0.0.2", 5702)), result);
+    }
+
+    @Test
+    public void registerAndShutdown() {
+        // given
+        String blob = CONTAINER + "/10.0.0.1-5701";
+        stubFor(put(urlEqualTo(blob)).willReturn(aResponse().withStatus(201)));
+        stubFor(delete(urlEqualTo(blob)).willReturn(aResponse().withStatus(202)));
+
+        // when
+        registry.register("10.0.0.1", 5701, "westeurope-1");
+
+        // then
+        verifyEventually(() -> verify(putRequestedFor(urlEqualTo(blob))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .withHeader("x-ms-version", equalTo(API_VERSION))
+                .withHeader("x-ms-blob-type", equalTo("BlockBlob"))
+                .withHeader("x-ms-meta-address", equalTo("10.0.0.1"))
+                .withHeader("x-ms-meta-port", equalTo("5701"))
+                .withHeader("x-ms-meta-zone", equalTo("westeurope-1"))));
+
+        // when
+        registry.shutdown();
+
+        // then
+        verify(deleteRequestedFor(urlPathEqualTo(blob)));
+    }
+
+    @Test
+    public void registerIpv6Address() {
+        // given
+        String blob = CONTAINER + "/fe80%3A%3A1%25eth0-5701";
+        stubFor(put(urlEqualTo(blob)).willReturn(aResponse().withStatus(201)));
+        stubFor(delete(urlEqualTo(blob)).willReturn(aResponse().withStatus(202)));
+
+        // when
+        registry.register("fe80::1%eth0", 5701, null);
+
+        // then
+        verifyEventually(() -> verify(putRequestedFor(urlEqualTo(blob))
+                .withHeader("x-ms-meta-address", equalTo("fe80::1%eth0"))));
+    }
+
+    private static AzureAddress address(String address, int port) {
+        return new AzureAddress(new InetAddressCache().get(address), null, port);
+    }
+
+    private static void stubList(String url, long serverTime, String response) {
+        stubFor(get(urlEqualTo(url))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .withHeader("x-ms-version", equalTo(API_VERSION))
+                .willReturn(aResponse().withStatus(200).withHeader("Date", httpDate(serverTime)).withBody(response)));
+    }
+
+    private static String listing(String nextMarker, String... blobs) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?><EnumerationResults><Blobs>");
+        for (String blob : blobs) {
+            xml.append(blob);
+        }
+        xml.append("</Blobs><NextMarker>").append(nextMarker == null ? "" : nextMarker).append("</NextMarker>");
+        return xml.append("</EnumerationResults>").toString();
+    }
+
+    private static String blob(String address, int port, long lastModified) {
+        return String.format("<Blob><Name>%s-%s</Name><Properties><Last-Modified>%s</Last-Modified></Properties>"
+                + "<Metadata><address>%s</address><port>%s</port></Metadata></Blob>", address, port, httpDate(lastModified),
+                address, port);
+    }
+
+    private static String httpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+    }
+
+    private static void verifyEventually(Runnable verification) {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (true) {
+            try {
+                verification.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                sleep();
+            }
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -21,12 +21,15 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -121,6 +124,170 @@ public class AzureClientTest {
         assertEquals(ADDRESSES, result);
     }
 
+    @Test
+    public void getAddressesWithAdditionalScopes() {
+        // given
+        List<AzureAddress> otherAddresses = asList(
+                new AzureAddress("10.241.0.2", "35.207.1.219"),
+                new AzureAddress("10.240.0.2", "35.207.0.219"));
+        given(azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN)).willReturn(ADDRESSES);
+        given(azureComputeApi.instances("subscription-2", "resource-group-2", null, null, ACCESS_TOKEN))
+                .willReturn(otherAddresses);
+
+        AzureConfig azureConfig = AzureConfig.builder()
+                                             .setInstanceMetadataAvailable(true)
+                                             .setAdditionalScopes(AzureScope.parseList("subscription-2/resource-group-2"))
+                                             .setScopeParallelism(4)
+                                             .build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        Collection<AzureAddress> result = azureClient.getAddresses();
+        azureClient.shutdown();
+
+        // then
+        List<AzureAddress> expected = new ArrayList<AzureAddress>(ADDRESSES);
+        expected.add(otherAddresses.get(0));
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void getAddressesWithScaleSets() {
+        // given
+        List<AzureAddress> otherAddresses = asList(new AzureAddress("10.241.0.2", "35.207.1.219"));
+        given(azureComputeApi.scaleSets(SUBSCRIPTION_ID, RESOURCE_GROUP, ACCESS_TOKEN))
+                .willReturn(asList("hz-blue", "HZ-GREEN", "other", "scale-set-2"));
+        given(azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, "scale-set-2", null, ACCESS_TOKEN))
+                .willReturn(ADDRESSES.subList(0, 2));
+        given(azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, "hz-blue", null, ACCESS_TOKEN))
+                .willReturn(ADDRESSES.subList(2, 4));
+        given(azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, "HZ-GREEN", null, ACCESS_TOKEN))
+                .willReturn(otherAddresses);
+
+        AzureConfig azureConfig = AzureConfig.builder()
+                                             .setInstanceMetadataAvailable(true)
+                                             .setScaleSets(asList("scale-set-2", "hz-*"))
+                                             .setScopeParallelism(4)
+                                             .build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        Collection<AzureAddress> result = azureClient.getAddresses();
+        azureClient.shutdown();
+
+        // then
+        List<AzureAddress> expected = new ArrayList<AzureAddress>(ADDRESSES);
+        expected.add(otherAddresses.get(0));
+        assertEquals(expected, result);
+        verify(azureComputeApi, times(0)).instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN);
+        verify(azureComputeApi, times(0)).instances(SUBSCRIPTION_ID, RESOURCE_GROUP, "other", null, ACCESS_TOKEN);
+    }
+
+    @Test
+    public void getAddressesWhenNoScaleSetMatches() {
+        // given
+        given(azureComputeApi.scaleSets(SUBSCRIPTION_ID, RESOURCE_GROUP, ACCESS_TOKEN)).willReturn(asList("other"));
+
+        AzureConfig azureConfig = AzureConfig.builder()
+                                             .setInstanceMetadataAvailable(true)
+                                             .setScaleSets(asList("hz-?"))
+                                             .build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        Collection<AzureAddress> result = azureClient.getAddresses();
+        azureClient.shutdown();
+
+        // then
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void getAddressesWhenDnsNameCannotBeResolved() {
+        // given
+        given(azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN)).willReturn(ADDRESSES);
+
+        AzureConfig azureConfig = AzureConfig.builder()
+                                             .setInstanceMetadataAvailable(true)
+                                             .setDnsName("hazelcast.cluster.internal")
+                                             .setDnsServer("127.0.0.1:1")
+                                             .build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        Collection<AzureAddress> result = azureClient.getAddresses();
+
+        // then
+        assertEquals(ADDRESSES, result);
+    }
+
+    @Test
+    public void getAddressesWithEventGrid() {
+        // given
+        given(azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN)).willReturn(ADDRESSES);
+
+        AzureConfig azureConfig = AzureConfig.builder()
+                                             .setInstanceMetadataAvailable(true)
+                                             .setEventGridPort(0)
+                                             .setEventGridReconciliationSeconds(300)
+                                             .build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        try {
+            // when
+            Collection<AzureAddress> result1 = azureClient.getAddresses();
+            Collection<AzureAddress> result2 = azureClient.getAddresses();
+            azureClient.resourceChanged("/subscriptions/subscription-1/resourceGroups/resource-group-1/providers"
+                    + "/Microsoft.Network/networkInterfaces/nic-1");
+            Collection<AzureAddress> result3 = azureClient.getAddresses();
+
+            // then
+            assertEquals(ADDRESSES, result1);
+            assertEquals(ADDRESSES, result2);
+            assertEquals(ADDRESSES, result3);
+            verify(azureComputeApi, times(2)).instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN);
+        } finally {
+            azureClient.shutdown();
+        }
+    }
+
+    @Test
+    public void getAddressesWhenAdditionalScopeFails() {
+        // given
+        given(azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN)).willReturn(ADDRESSES);
+        given(azureComputeApi.instances("subscription-2", "resource-group-2", null, null, ACCESS_TOKEN))
+                .willThrow(new RestClientException("Forbidden", 403));
+
+        AzureConfig azureConfig = AzureConfig.builder()
+                                             .setInstanceMetadataAvailable(true)
+                                             .setAdditionalScopes(AzureScope.parseList("subscription-2/resource-group-2"))
+                                             .setScopeParallelism(1)
+                                             .build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        Collection<AzureAddress> result = azureClient.getAddresses();
+        azureClient.shutdown();
+
+        // then
+        assertEquals(ADDRESSES, result);
+    }
+
+    @Test
+    public void getAddressesReusesAccessToken() {
+        // given
+        given(azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN)).willReturn(ADDRESSES);
+        AzureConfig azureConfig = AzureConfig.builder().setInstanceMetadataAvailable(true).build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        azureClient.getAddresses();
+        azureClient.getAddresses();
+
+        // then
+        verify(azureMetadataApi, times(1)).accessToken();
+    }
+
     @Test
     public void getAvailabilityZone() {
         // given
@@ -137,4 +304,55 @@ public class AzureClientTest {
         assertEquals(String.format("%s-%s", location, ZONE), result);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getPlacementWithoutZones() {
+        // given
+        given(azureMetadataApi.faultDomain()).willReturn("1");
+        given(azureMetadataApi.updateDomain()).willReturn("3");
+        AzureConfig azureConfig = AzureConfig.builder().setInstanceMetadataAvailable(true).build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        String result = azureClient.getPlacement();
+
+        // then
+        assertEquals("1-3", result);
+    }
+
+    @Test
+    public void getPlacementWithZones() {
+        // given
+        given(azureMetadataApi.location()).willReturn("location-1");
+        given(azureMetadataApi.availabilityZone()).willReturn(ZONE);
+        given(azureMetadataApi.faultDomain()).willReturn("1");
+        given(azureMetadataApi.updateDomain()).willReturn("3");
+        AzureConfig azureConfig = AzureConfig.builder().setInstanceMetadataAvailable(true).build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        String result = azureClient.getPlacement();
+
+        // then
+        assertEquals(String.format("location-1-%s", ZONE), result);
+    }
+
+    @Test
+    public void getPlacementWithSpotAwarePlacement() {
+        // given
+        given(azureMetadataApi.faultDomain()).willReturn("1");
+        given(azureMetadataApi.updateDomain()).willReturn("3");
+        given(azureMetadataApi.priority()).willReturn("Low", "Regular", null);
+        AzureConfig azureConfig = AzureConfig.builder().setInstanceMetadataAvailable(true).setSpotAwarePlacement(true).build();
+        AzureClient azureClient = new AzureClient(azureMetadataApi, azureComputeApi, azureAuthenticator, azureConfig);
+
+        // when
+        String lowPriority = azureClient.getPlacement();
+        String regularPriority = azureClient.getPlacement();
+        String noPriority = azureClient.getPlacement();
+
+        // then
+        assertEquals("Spot", lowPriority);
+        assertEquals("Regular", regularPriority);
+        assertEquals("Regular", noPriority);
+    }
+}
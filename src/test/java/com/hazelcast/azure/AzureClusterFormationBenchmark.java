@@ -0,0 +1,293 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.DiscoveryStrategyConfig;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.config.NetworkConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.json.JsonArray;
+import com.hazelcast.internal.json.JsonObject;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.DiscoveryStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures how long it takes a fresh cluster of N in-JVM members to reach full membership when all of them use the Azure
+ * discovery against a local stand-in for Azure Instance Metadata Service and Azure Resource Manager.
+ * <p>
+ * Every fake VM is mapped to its own loopback address (127.0.0.x) and every member binds to the address of its VM, so the
+ * {@link PortRange} cross product and stale (non-running) VMs behave as they would in Azure. Members running in the same JVM
+ * cannot share a port even on distinct loopback addresses, therefore every member gets its own slot of
+ * {@code port-range-size} ports, listens on the first port of the slot and discovers the ports of all slots.
+ * <p>
+ * The benchmark is not part of the regular test run. Execute it with:
+ * <pre>
+ * mvn test -Dtest=AzureClusterFormationBenchmark -Dbenchmark.cluster-sizes=2,4,8 -Dbenchmark.port-range-sizes=1,3
+ * </pre>
+ * Supported system properties:
+ * <ul>
+ *     <li>{@code benchmark.cluster-sizes} - comma-separated list of cluster sizes, default "2,4"</li>
+ *     <li>{@code benchmark.port-range-sizes} - comma-separated list of port range sizes per member, default "1,3"</li>
+ *     <li>{@code benchmark.stale-vms} - number of discovered VMs without a running member, default "0"</li>
+ *     <li>{@code benchmark.max-formation-millis} - fails the run if any scenario exceeds this time, not set by default</li>
+ * </ul>
+ */
+public class AzureClusterFormationBenchmark {
+    private static final String SUBSCRIPTION_ID = "subscription-1";
+    private static final String RESOURCE_GROUP = "resource-group-1";
+    private static final String SCALE_SET = "scale-set-1";
+    private static final int BASE_PORT = 5701;
+    private static final long FORMATION_TIMEOUT_SECONDS = 300;
+    private static final String REPORT_ROW = "%-12s %-14s %-12s %-16s %-14s %-14s";
+
+    private final List<String> report = new ArrayList<String>();
+
+    private WireMockServer azureStandIn;
+
+    @Before
+    public void setUp() {
+        azureStandIn = new WireMockServer(wireMockConfig().dynamicPort());
+        azureStandIn.start();
+        azureStandIn.stubFor(get(urlPathEqualTo("/metadata/instance/compute"))
+                .willReturn(aResponse().withStatus(200).withBody(metadataResponse())));
+        azureStandIn.stubFor(get(urlPathEqualTo("/metadata/identity/oauth2/token"))
+                .willReturn(aResponse().withStatus(200).withBody("{\"access_token\":\"access-token\"}")));
+        String scaleSetPath = scaleSetPath("");
+        azureStandIn.stubFor(get(urlPathEqualTo(scaleSetPath.substring(0, scaleSetPath.length() - 1)))
+                .willReturn(aResponse().withStatus(200).withBody("{\"properties\":{\"orchestrationMode\":\"Uniform\"}}")));
+    }
+
+    @After
+    public void tearDown() {
+        Hazelcast.shutdownAll();
+        azureStandIn.stop();
+        for (String line : report) {
+            System.out.println(line);
+        }
+    }
+
+    @Test
+    public void clusterFormation()
+            throws Exception {
+        int staleVms = Integer.getInteger("benchmark.stale-vms", 0);
+        long maxFormationMillis = Long.getLong("benchmark.max-formation-millis", Long.MAX_VALUE);
+
+        report.add(String.format(REPORT_ROW, "members", "ports-per-vm", "stale-vms",
+                "formation-ms", "discoveries", "arm-requests"));
+        for (int clusterSize : intList(System.getProperty("benchmark.cluster-sizes", "2,4"))) {
+            for (int portRangeSize : intList(System.getProperty("benchmark.port-range-sizes", "1,3"))) {
+                Result result = run(clusterSize, portRangeSize, staleVms);
+                report.add(String.format(REPORT_ROW, clusterSize, clusterSize * portRangeSize, staleVms,
+                        result.formationMillis, result.discoveries, result.armRequests));
+                assertTrue(String.format("Cluster of %s members with port range %s formed in %s ms", clusterSize,
+                        portRangeSize, result.formationMillis), result.formationMillis <= maxFormationMillis);
+            }
+        }
+    }
+
+    private Result run(final int clusterSize, int portRangeSize, int staleVms)
+            throws Exception {
+        azureStandIn.resetRequests();
+        azureStandIn.stubFor(get(urlPathEqualTo(scaleSetPath("networkInterfaces")))
+                .willReturn(aResponse().withStatus(200).withBody(networkInterfacesResponse(clusterSize + staleVms))));
+        azureStandIn.stubFor(get(urlPathEqualTo(scaleSetPath("publicIPAddresses")))
+                .willReturn(aResponse().withStatus(200).withBody("{\"value\":[]}")));
+
+        final AtomicInteger discoveries = new AtomicInteger();
+        final String portRange = String.format("%s-%s", BASE_PORT, BASE_PORT + clusterSize * portRangeSize - 1);
+        ExecutorService executor = Executors.newFixedThreadPool(clusterSize);
+        try {
+            long start = System.nanoTime();
+            List<Future<HazelcastInstance>> members = new ArrayList<Future<HazelcastInstance>>();
+            for (int i = 0; i < clusterSize; i++) {
+                final Config config = memberConfig(vmAddress(i), BASE_PORT + i * portRangeSize, portRange, discoveries);
+                members.add(executor.submit(() -> Hazelcast.newHazelcastInstance(config)));
+            }
+            List<HazelcastInstance> instances = new ArrayList<HazelcastInstance>();
+            for (Future<HazelcastInstance> member : members) {
+                instances.add(member.get(FORMATION_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+            awaitFullMembership(instances, clusterSize);
+            long formationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new Result(formationMillis, discoveries.get(), armRequests());
+        } finally {
+            executor.shutdownNow();
+            Hazelcast.shutdownAll();
+        }
+    }
+
+    private static void awaitFullMembership(List<HazelcastInstance> instances, int clusterSize)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(FORMATION_TIMEOUT_SECONDS);
+        for (HazelcastInstance instance : instances) {
+            while (instance.getCluster().getMembers().size() != clusterSize) {
+                if (System.nanoTime() > deadline) {
+                    throw new AssertionError(String.format("Cluster did not reach %s members in %s seconds",
+                            clusterSize, FORMATION_TIMEOUT_SECONDS));
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private int armRequests() {
+        return azureStandIn.findAll(getRequestedFor(urlPathMatching("/subscriptions/.*"))).size();
+    }
+
+    private Config memberConfig(String vmAddress, int port, String portRange, AtomicInteger discoveries) {
+        Config config = new Config();
+        config.setProperty("hazelcast.discovery.enabled", "true");
+        config.setProperty("hazelcast.local.localAddress", vmAddress);
+        config.setProperty("hazelcast.socket.bind.any", "false");
+        config.setProperty("hazelcast.socket.client.bind.any", "false");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+
+        NetworkConfig networkConfig = config.getNetworkConfig();
+        networkConfig.setPort(port).setPortAutoIncrement(false);
+
+        JoinConfig joinConfig = networkConfig.getJoin();
+        joinConfig.getMulticastConfig().setEnabled(false);
+        joinConfig.getTcpIpConfig().setEnabled(false);
+
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("hz-port", portRange);
+        joinConfig.getDiscoveryConfig().addDiscoveryStrategyConfig(new DiscoveryStrategyConfig(
+                new StandInDiscoveryStrategyFactory(String.format("http://127.0.0.1:%s", azureStandIn.port()), discoveries), properties));
+        return config;
+    }
+
+    private static String scaleSetPath(String resource) {
+        return String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute/virtualMachineScaleSets/%s/%s",
+                SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, resource);
+    }
+
+    private static String vmAddress(int vmIndex) {
+        return String.format("127.0.%s.%s", vmIndex / 250, vmIndex % 250 + 1);
+    }
+
+    private static String metadataResponse() {
+        return new JsonObject()
+                .add("subscriptionId", SUBSCRIPTION_ID)
+                .add("resourceGroupName", RESOURCE_GROUP)
+                .add("vmScaleSetName", SCALE_SET)
+                .add("location", "eastus")
+                .add("platformFaultDomain", "0")
+                .toString();
+    }
+
+    private static String networkInterfacesResponse(int vmCount) {
+        JsonArray interfaces = new JsonArray();
+        for (int i = 0; i < vmCount; i++) {
+            JsonObject ipConfiguration = new JsonObject()
+                    .add("properties", new JsonObject().add("privateIPAddress", vmAddress(i)));
+            JsonObject properties = new JsonObject()
+                    .add("virtualMachine", new JsonObject().add("id", "vm-" + i))
+                    .add("ipConfigurations", new JsonArray().add(ipConfiguration));
+            interfaces.add(new JsonObject().add("properties", properties));
+        }
+        return new JsonObject().add("value", interfaces).toString();
+    }
+
+    private static List<Integer> intList(String spec) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (String value : spec.split(",")) {
+            result.add(Integer.parseInt(value.trim()));
+        }
+        return result;
+    }
+
+    private static final class Result {
+        private final long formationMillis;
+        private final int discoveries;
+        private final int armRequests;
+
+        private Result(long formationMillis, int discoveries, int armRequests) {
+            this.formationMillis = formationMillis;
+            this.discoveries = discoveries;
+            this.armRequests = armRequests;
+        }
+    }
+
+    /**
+     * Creates the regular {@link AzureDiscoveryStrategy} with Azure API clients pointing to the local stand-in.
+     */
+    private static final class StandInDiscoveryStrategyFactory extends AzureDiscoveryStrategyFactory {
+        private final String endpoint;
+        private final AtomicInteger discoveries;
+
+        private StandInDiscoveryStrategyFactory(String endpoint, AtomicInteger discoveries) {
+            this.endpoint = endpoint;
+            this.discoveries = discoveries;
+        }
+
+        @Override
+        public Class<? extends DiscoveryStrategy> getDiscoveryStrategyType() {
+            return CountingDiscoveryStrategy.class;
+        }
+
+        @Override
+        public DiscoveryStrategy newDiscoveryStrategy(DiscoveryNode node, ILogger logger, Map<String, Comparable> properties) {
+            AzureConfig azureConfig = AzureConfig.builder().setInstanceMetadataAvailable(true).build();
+            AzureClient azureClient = new AzureClient(new AzureMetadataApi(endpoint, new HashMap<String, String>()),
+                    new AzureComputeApi(endpoint), new AzureAuthenticator(endpoint), azureConfig);
+            return new CountingDiscoveryStrategy(properties, azureClient, discoveries);
+        }
+    }
+
+    /**
+     * Counts every {@link DiscoveryStrategy#discoverNodes()} call as a join attempt.
+     */
+    private static final class CountingDiscoveryStrategy extends AzureDiscoveryStrategy {
+        private final AtomicInteger discoveries;
+
+        private CountingDiscoveryStrategy(Map<String, Comparable> properties, AzureClient azureClient,
+                                          AtomicInteger discoveries) {
+            super(properties, azureClient);
+            this.discoveries = discoveries;
+        }
+
+        @Override
+        public Iterable<DiscoveryNode> discoverNodes() {
+            discoveries.incrementAndGet();
+            return super.discoverNodes();
+        }
+    }
+}
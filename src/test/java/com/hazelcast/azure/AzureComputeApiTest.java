@@ -21,18 +21,30 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static com.hazelcast.azure.AzureComputeApi.API_VERSION;
+import static com.hazelcast.azure.AzureComputeApi.API_VERSION_FLEXIBLE;
 import static com.hazelcast.azure.AzureComputeApi.API_VERSION_SCALE_SET;
+import static com.hazelcast.azure.AzureComputeApi.API_VERSION_SUBNET;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class AzureComputeApiTest {
     private static final String SUBSCRIPTION_ID = "subscription-1";
@@ -56,6 +68,10 @@ public class AzureComputeApiTest {
     @Before
     public void setUp() {
         azureComputeApi = new AzureComputeApi(String.format("http://localhost:%s", wireMockRule.port()));
+        stubFor(get(urlEqualTo(String.format("%s?api-version=%s", scaleSetId(SCALE_SET), API_VERSION_FLEXIBLE)))
+                .willReturn(aResponse().withStatus(200).withBody("{\"properties\": {\"orchestrationMode\": \"Uniform\"}}")));
+        stubFor(get(urlPathMatching(".*/virtualMachines"))
+                .willReturn(aResponse().withStatus(200).withBody("{\"value\": []}")));
     }
 
     @Test
@@ -86,9 +102,75 @@ public class AzureComputeApiTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    public void instancesWithPlacement() {
+        // given
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/networkInterfaces?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForNetworkInterfaces())));
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/publicIPAddresses?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForPublicIPAddresses())));
+        String vmList = "/subscriptions/subid/resourceGroups/rg1/providers/Microsoft.Compute/virtualMachines";
+        stubFor(get(urlEqualTo(String.format("%s?api-version=%s", vmList, API_VERSION_FLEXIBLE)))
+                .willReturn(aResponse().withStatus(200).withBody(String.format("{\"value\": ["
+                        + "{\"id\": \"%1$s/vm1\", \"location\": \"eastus\", \"zones\": [\"2\"],"
+                        + " \"properties\": {\"platformFaultDomain\": 0}},"
+                        + "{\"id\": \"%1$s/VM2\", \"location\": \"eastus\", \"properties\": {\"platformFaultDomain\": 1}}]}",
+                        vmList))));
+
+        // when
+        Collection<AzureAddress> result1 = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+        Collection<AzureAddress> result2 = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+
+        // then
+        Iterator<AzureAddress> addresses = result1.iterator();
+        AzureAddress address1 = addresses.next();
+        assertEquals(vmList + "/vm1", address1.getVmId());
+        assertEquals("eastus-2", address1.getZone());
+        assertEquals("0", address1.getFaultDomain());
+        AzureAddress address2 = addresses.next();
+        assertEquals("1", address2.getZone());
+        assertEquals("1", address2.getFaultDomain());
+        assertSame(result1, result2);
+        verify(1, getRequestedFor(urlPathEqualTo(vmList)));
+    }
+
     @Test
     public void instancesWithScaleSet() {
         // given
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute"
+                        + "/virtualMachineScaleSets/%s/networkInterfaces?api-version=%s"
+                        + "&$expand=ipConfigurations/publicIPAddress",
+                        SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, API_VERSION_SCALE_SET)))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForExpandedNetworkInterfaces())));
+
+        // when
+        Collection<AzureAddress> result = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN);
+
+        // then
+        AzureAddress address1 = new AzureAddress(INSTANCE_1_PRIVATE_IP, INSTANCE_1_PUBLIC_IP);
+        AzureAddress address2 = new AzureAddress(INSTANCE_2_PRIVATE_IP, INSTANCE_2_PUBLIC_IP);
+        AzureAddress address3 = new AzureAddress(INSTANCE_3_PRIVATE_IP, null);
+        AzureAddress address4 = new AzureAddress(INSTANCE_4_PRIVATE_IP, null);
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>(4);
+        expected.add(address1);
+        expected.add(address2);
+        expected.add(address3);
+        expected.add(address4);
+        assertEquals(expected, result);
+        verify(0, getRequestedFor(urlPathMatching(".*/publicIPAddresses")));
+    }
+
+    @Test
+    public void instancesWithScaleSetWhenExpandNotSupported() {
+        // given
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute"
+                        + "/virtualMachineScaleSets/%s/networkInterfaces?api-version=%s"
+                        + "&$expand=ipConfigurations/publicIPAddress",
+                        SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, API_VERSION_SCALE_SET)))
+                .willReturn(aResponse().withStatus(400)));
         stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute"
                         + "/virtualMachineScaleSets/%s/networkInterfaces?api-version=%s",
                         SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, API_VERSION_SCALE_SET)))
@@ -114,6 +196,256 @@ public class AzureComputeApiTest {
         expected.add(address3);
         expected.add(address4);
         assertEquals(expected, result);
+
+        // and the expansion is not tried again
+        azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN);
+        verify(1, getRequestedFor(urlPathMatching(".*/networkInterfaces")).withQueryParam("$expand", matching(".*")));
+    }
+
+    @Test
+    public void instancesWithoutPublicIpLookup() {
+        // given
+        azureComputeApi = new AzureComputeApi(String.format("http://localhost:%s", wireMockRule.port()),
+                AzureConfig.builder().setPublicIpLookup(false).build());
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute"
+                        + "/virtualMachineScaleSets/%s/networkInterfaces?api-version=%s",
+                        SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, API_VERSION_SCALE_SET)))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForNetworkInterfaces())));
+
+        // when
+        Collection<AzureAddress> result = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null, ACCESS_TOKEN);
+
+        // then
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>(4);
+        expected.add(new AzureAddress(INSTANCE_1_PRIVATE_IP, null));
+        expected.add(new AzureAddress(INSTANCE_2_PRIVATE_IP, null));
+        expected.add(new AzureAddress(INSTANCE_3_PRIVATE_IP, null));
+        expected.add(new AzureAddress(INSTANCE_4_PRIVATE_IP, null));
+        assertEquals(expected, result);
+        verify(0, getRequestedFor(urlPathMatching(".*/publicIPAddresses")));
+    }
+
+    @Test
+    public void instancesWithPublicIpRefreshSeconds() {
+        // given
+        azureComputeApi = new AzureComputeApi(String.format("http://localhost:%s", wireMockRule.port()),
+                AzureConfig.builder().setPublicIpLookup(true).setPublicIpRefreshSeconds(3600).build());
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/networkInterfaces?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForNetworkInterfaces())));
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/publicIPAddresses?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForPublicIPAddresses())));
+
+        // when
+        azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+        Collection<AzureAddress> result = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+
+        // then
+        assertTrue(result.contains(new AzureAddress(INSTANCE_1_PRIVATE_IP, INSTANCE_1_PUBLIC_IP)));
+        assertTrue(result.contains(new AzureAddress(INSTANCE_2_PRIVATE_IP, INSTANCE_2_PUBLIC_IP)));
+        verify(1, getRequestedFor(urlPathMatching(".*/publicIPAddresses")));
+    }
+
+    @Test
+    public void instancesWithArmBatch() {
+        // given
+        azureComputeApi = new AzureComputeApi(String.format("http://localhost:%s", wireMockRule.port()),
+                AzureConfig.builder().setPublicIpLookup(true).setArmBatch(true).build());
+        stubFor(post(urlEqualTo(String.format("/batch?api-version=%s", AzureBatchApi.API_VERSION)))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .willReturn(aResponse().withStatus(200).withBody(String.format("{\"responses\":["
+                                + "{\"name\":\"0\",\"httpStatusCode\":200,\"content\":%s},"
+                                + "{\"name\":\"1\",\"httpStatusCode\":200,\"content\":%s}]}",
+                        instancesResponseForNetworkInterfaces(), instancesResponseForPublicIPAddresses()))));
+
+        // when
+        Collection<AzureAddress> result = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+
+        // then
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>(4);
+        expected.add(new AzureAddress(INSTANCE_1_PRIVATE_IP, INSTANCE_1_PUBLIC_IP));
+        expected.add(new AzureAddress(INSTANCE_2_PRIVATE_IP, INSTANCE_2_PUBLIC_IP));
+        expected.add(new AzureAddress(INSTANCE_3_PRIVATE_IP, null));
+        expected.add(new AzureAddress(INSTANCE_4_PRIVATE_IP, null));
+        assertEquals(expected, result);
+        // only the VM list for the placement of the new VMs is fetched separately
+        verify(0, getRequestedFor(urlPathMatching("/subscriptions/.*/Microsoft.Network/.*")));
+    }
+
+    @Test
+    public void instancesUnchanged() {
+        // given
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/networkInterfaces?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForNetworkInterfaces())));
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/publicIPAddresses?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForPublicIPAddresses())));
+
+        // when
+        Collection<AzureAddress> result1 = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+        Collection<AzureAddress> result2 = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+
+        // then
+        assertSame(result1, result2);
+    }
+
+    @Test
+    public void instancesChanged() {
+        // given
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/networkInterfaces?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForNetworkInterfaces())));
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/publicIPAddresses?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForPublicIPAddresses())));
+        azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/publicIPAddresses?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(instancesResponseForPublicIPAddresses()
+                        .replace(INSTANCE_1_PUBLIC_IP, "35.207.0.220"))));
+
+        // when
+        Collection<AzureAddress> result = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+
+        // then
+        assertTrue(result.contains(new AzureAddress(INSTANCE_1_PRIVATE_IP, "35.207.0.220")));
+    }
+
+    @Test
+    public void instancesWithFlexibleScaleSet() {
+        // given
+        String scaleSet = "flexible-scale-set";
+        stubFor(get(urlEqualTo(String.format("%s?api-version=%s", scaleSetId(scaleSet), API_VERSION_FLEXIBLE)))
+                .willReturn(aResponse().withStatus(200).withBody("{\"properties\": {\"orchestrationMode\": \"Flexible\"}}")));
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute/virtualMachines"
+                        + "?api-version=%s&$filter=%%27virtualMachineScaleSet%%2Fid%%27%%20eq%%20%%27%s%%27", SUBSCRIPTION_ID,
+                RESOURCE_GROUP, API_VERSION_FLEXIBLE, scaleSetId(scaleSet).replace("/", "%2F"))))
+                .willReturn(aResponse().withStatus(200).withBody(flexibleVmsResponse("nic-1", "nic-2"))));
+        stubFor(get(urlEqualTo(String.format("%s?api-version=%s&$expand=ipConfigurations/publicIPAddress", nicId("nic-1"),
+                API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(flexibleNicResponse(INSTANCE_1_PRIVATE_IP, INSTANCE_1_PUBLIC_IP))));
+        stubFor(get(urlEqualTo(String.format("%s?api-version=%s&$expand=ipConfigurations/publicIPAddress", nicId("nic-2"),
+                API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(flexibleNicResponse(INSTANCE_2_PRIVATE_IP, INSTANCE_2_PUBLIC_IP))));
+
+        // when
+        Collection<AzureAddress> result1 = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, scaleSet, null, ACCESS_TOKEN);
+        Collection<AzureAddress> result2 = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, scaleSet, null, ACCESS_TOKEN);
+
+        // then
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>();
+        expected.add(new AzureAddress(INSTANCE_1_PRIVATE_IP, INSTANCE_1_PUBLIC_IP));
+        expected.add(new AzureAddress(INSTANCE_2_PRIVATE_IP, INSTANCE_2_PUBLIC_IP));
+        assertEquals(expected, result1);
+        assertSame(result1, result2);
+        verify(1, getRequestedFor(urlPathMatching(".*/virtualMachineScaleSets/flexible-scale-set")));
+        verify(0, getRequestedFor(urlPathMatching(".*/providers/Microsoft.Network/networkInterfaces")));
+        verify(1, getRequestedFor(urlPathMatching(".*/networkInterfaces/nic-1")));
+    }
+
+    @Test
+    public void instancesWithLoadBalancerBackendPool() {
+        // given
+        azureComputeApi = new AzureComputeApi(String.format("http://localhost:%s", wireMockRule.port()),
+                AzureConfig.builder().setPublicIpLookup(true).setLoadBalancer("load-balancer-1")
+                           .setBackendPool("backend-pool-1").build());
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/loadBalancers"
+                + "/load-balancer-1/backendAddressPools/backend-pool-1?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP,
+                AzureLoadBalancerApi.API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(String.format("{\"properties\": {"
+                        + "\"backendIPConfigurations\": [{\"id\": \"%s/ipConfigurations/ipconfig1\"}],"
+                        + "\"loadBalancerBackendAddresses\": [{\"properties\": {\"ipAddress\": \"%s\"}}]}}",
+                        nicId("nic-1"), INSTANCE_3_PRIVATE_IP))));
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/loadBalancers"
+                + "/load-balancer-1/networkInterfaces?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP,
+                AzureLoadBalancerApi.API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(String.format("{\"value\": [{\"properties\": {"
+                        + "\"ipConfigurations\": ["
+                        + "{\"id\": \"%1$s/ipConfigurations/ipconfig1\", \"properties\": {\"privateIPAddress\": \"%2$s\","
+                        + " \"publicIPAddress\": {\"id\": \"public-ip-1\"}}},"
+                        + "{\"id\": \"%1$s/ipConfigurations/ipconfig2\", \"properties\": {\"privateIPAddress\": \"%3$s\"}}],"
+                        + "\"virtualMachine\": {\"id\": \"vm\"}}}]}",
+                        nicId("nic-1"), INSTANCE_1_PRIVATE_IP, INSTANCE_2_PRIVATE_IP))));
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/publicIPAddresses?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(String.format("{\"value\": [{\"id\": \"public-ip-1\","
+                        + " \"properties\": {\"ipAddress\": \"%s\"}}]}", INSTANCE_1_PUBLIC_IP))));
+
+        // when
+        Collection<AzureAddress> result1 = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null,
+                ACCESS_TOKEN);
+        Collection<AzureAddress> result2 = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, SCALE_SET, null,
+                ACCESS_TOKEN);
+
+        // then
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>();
+        expected.add(new AzureAddress(INSTANCE_1_PRIVATE_IP, INSTANCE_1_PUBLIC_IP));
+        expected.add(new AzureAddress(INSTANCE_3_PRIVATE_IP, null));
+        assertEquals(expected, new LinkedHashSet<AzureAddress>(result1));
+        assertSame(result1, result2);
+        verify(0, getRequestedFor(urlPathMatching(".*/networkInterfaces/.*")));
+    }
+
+    @Test
+    public void instancesWithSubnet() {
+        // given
+        azureComputeApi = new AzureComputeApi(String.format("http://localhost:%s", wireMockRule.port()),
+                AzureConfig.builder().setPublicIpLookup(true).setSubnet("vnet-1/subnet-1").build());
+        stubSubnet();
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network"
+                + "/publicIPAddresses?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(String.format("{\"value\": [{\"id\": \"public-ip-1\","
+                        + " \"properties\": {\"ipAddress\": \"%s\"}}]}", INSTANCE_1_PUBLIC_IP))));
+
+        // when
+        Collection<AzureAddress> result = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, null, ACCESS_TOKEN);
+
+        // then
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>();
+        expected.add(new AzureAddress(INSTANCE_1_PRIVATE_IP, INSTANCE_1_PUBLIC_IP));
+        expected.add(new AzureAddress(INSTANCE_2_PRIVATE_IP, null));
+        assertEquals(expected, new LinkedHashSet<AzureAddress>(result));
+        verify(0, getRequestedFor(urlPathMatching(".*/networkInterfaces.*")));
+    }
+
+    @Test
+    public void instancesWithSubnetAndTag() {
+        // given
+        azureComputeApi = new AzureComputeApi(String.format("http://localhost:%s", wireMockRule.port()),
+                AzureConfig.builder().setPublicIpLookup(false).setSubnet("vnet-1/subnet-1").build());
+        stubSubnet();
+        stubFor(get(urlEqualTo(String.format("%s?api-version=%s", nicId("nic-1"), API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(subnetNicResponse("nic-1", INSTANCE_1_PRIVATE_IP, "other"))));
+        stubFor(get(urlEqualTo(String.format("%s?api-version=%s", nicId("nic-2"), API_VERSION)))
+                .willReturn(aResponse().withStatus(200).withBody(subnetNicResponse("nic-2", INSTANCE_2_PRIVATE_IP,
+                        TAG.getValue()))));
+
+        // when
+        Collection<AzureAddress> result = azureComputeApi.instances(SUBSCRIPTION_ID, RESOURCE_GROUP, null, TAG, ACCESS_TOKEN);
+
+        // then
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>();
+        expected.add(new AzureAddress(INSTANCE_2_PRIVATE_IP, null));
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void scaleSets() {
+        // given
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute"
+                + "/virtualMachineScaleSets?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, API_VERSION_SCALE_SET)))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .willReturn(aResponse().withStatus(200)
+                        .withBody("{\"value\": [{\"name\": \"hz-blue\"}, {\"name\": \"hz-green\"}]}")));
+
+        // when
+        Collection<String> result = azureComputeApi.scaleSets(SUBSCRIPTION_ID, RESOURCE_GROUP, ACCESS_TOKEN);
+
+        // then
+        assertEquals(asList("hz-blue", "hz-green"), result);
     }
 
     @Test
@@ -138,9 +470,74 @@ public class AzureComputeApiTest {
         assertEquals(expected, result);
     }
 
+    /**
+     * Network interfaces response with the public IP addresses expanded inline.
+     */
+    private static String instancesResponseForExpandedNetworkInterfaces() {
+        return instancesResponseForNetworkInterfaces()
+                .replace("publicIPAddresses/test-ip\"\n", String.format("publicIPAddresses/test-ip\",\n"
+                        + "                \"properties\": { \"ipAddress\": \"%s\" }\n", INSTANCE_1_PUBLIC_IP))
+                .replace("publicIPAddresses/test-ip2\"\n", String.format("publicIPAddresses/test-ip2\",\n"
+                        + "                \"properties\": { \"ipAddress\": \"%s\" }\n", INSTANCE_2_PUBLIC_IP));
+    }
+
     /**
      * Response recorded from the real Cloud Compute API call.
      */
+    private static String scaleSetId(String scaleSet) {
+        return String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Compute/virtualMachineScaleSets/%s",
+                SUBSCRIPTION_ID, RESOURCE_GROUP, scaleSet);
+    }
+
+    private static String nicId(String nic) {
+        return String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/networkInterfaces/%s",
+                SUBSCRIPTION_ID, RESOURCE_GROUP, nic);
+    }
+
+    private static void stubSubnet() {
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/virtualNetworks"
+                + "/vnet-1/subnets/subnet-1?api-version=%s&$expand=ipConfigurations", SUBSCRIPTION_ID, RESOURCE_GROUP,
+                API_VERSION_SUBNET)))
+                .willReturn(aResponse().withStatus(200).withBody(String.format("{\"properties\": {\"ipConfigurations\": ["
+                        + "{\"id\": \"%s/ipConfigurations/ipconfig1\", \"properties\": {\"privateIPAddress\": \"%s\","
+                        + " \"publicIPAddress\": {\"id\": \"public-ip-1\"}}},"
+                        + "{\"id\": \"%s/ipConfigurations/ipconfig1\", \"properties\": {\"privateIPAddress\": \"%s\"}},"
+                        + "{\"id\": \"/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/loadBalancers/lb-1"
+                        + "/frontendIPConfigurations/frontend\", \"properties\": {\"privateIPAddress\": \"%s\"}}]}}",
+                        nicId("nic-1"), INSTANCE_1_PRIVATE_IP, nicId("nic-2"), INSTANCE_2_PRIVATE_IP, SUBSCRIPTION_ID,
+                        RESOURCE_GROUP, INSTANCE_3_PRIVATE_IP))));
+    }
+
+    private static String subnetNicResponse(String nic, String privateIp, String tagValue) {
+        return String.format("{\"properties\": {\"ipConfigurations\": [{\"id\": \"%s/ipConfigurations/ipconfig1\","
+                + " \"properties\": {\"privateIPAddress\": \"%s\"}}], \"virtualMachine\": {\"id\": \"vm\"}},"
+                + " \"tags\": {\"%s\": \"%s\"}}", nicId(nic), privateIp, TAG.getKey(), tagValue);
+    }
+
+    private static String flexibleVmsResponse(String... nics) {
+        StringBuilder vms = new StringBuilder();
+        for (String nic : nics) {
+            vms.append(vms.length() == 0 ? "" : ",").append(String.format(
+                    "{\"name\": \"vm-%s\", \"properties\": {\"networkProfile\": {\"networkInterfaces\": [{\"id\": \"%s\"}]}}}",
+                    nic, nicId(nic)));
+        }
+        return String.format("{\"value\": [%s]}", vms);
+    }
+
+    private static String flexibleNicResponse(String privateIp, String publicIp) {
+        return String.format("{\n"
+                + "  \"properties\": {\n"
+                + "    \"ipConfigurations\": [{\n"
+                + "      \"properties\": {\n"
+                + "        \"privateIPAddress\": \"%s\",\n"
+                + "        \"publicIPAddress\": {\"properties\": {\"ipAddress\": \"%s\"}}\n"
+                + "      }\n"
+                + "    }],\n"
+                + "    \"virtualMachine\": {\"id\": \"vm\"}\n"
+                + "  }\n"
+                + "}", privateIp, publicIp);
+    }
+
     private static String instancesResponseForNetworkInterfaces() {
         return String.format(
                 "{\n"
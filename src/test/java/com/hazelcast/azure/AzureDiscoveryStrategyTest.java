@@ -16,7 +16,9 @@
 package com.hazelcast.azure;
 
 import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.cluster.Address;
 import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.SimpleDiscoveryNode;
 import com.hazelcast.spi.partitiongroup.PartitionGroupMetaData;
 import org.junit.Before;
 import org.junit.Test;
@@ -57,6 +59,10 @@ public class AzureDiscoveryStrategyTest {
     public void discoverLocalMetadata() {
         // given
         given(azureClient.getAvailabilityZone()).willReturn(ZONE);
+        given(azureClient.getPlacement()).willReturn("1-3");
+        given(azureClient.getFaultDomain()).willReturn("1");
+        given(azureClient.getUpdateDomain()).willReturn("3");
+        given(azureClient.getPriority()).willReturn("Spot");
 
         // when
         Map<String, String> result1 = azureDiscoveryStrategy.discoverLocalMetadata();
@@ -65,7 +71,12 @@ public class AzureDiscoveryStrategyTest {
         // then
         assertEquals(ZONE, result1.get(PartitionGroupMetaData.PARTITION_GROUP_ZONE));
         assertEquals(ZONE, result2.get(PartitionGroupMetaData.PARTITION_GROUP_ZONE));
+        assertEquals("1-3", result1.get(PartitionGroupMetaData.PARTITION_GROUP_PLACEMENT));
+        assertEquals("1", result1.get(AzureDiscoveryStrategy.FAULT_DOMAIN_PROPERTY));
+        assertEquals("3", result1.get(AzureDiscoveryStrategy.UPDATE_DOMAIN_PROPERTY));
+        assertEquals("Spot", result1.get(AzureDiscoveryStrategy.PRIORITY_PROPERTY));
         verify(azureClient).getAvailabilityZone();
+        verify(azureClient).getPlacement();
     }
 
     @Test
@@ -135,6 +146,223 @@ public class AzureDiscoveryStrategyTest {
         assertEquals(PORT2, node4.getPrivateAddress().getPort());
     }
 
+    @Test
+    public void discoverNodesWithoutPublicIp() {
+        // given
+        AzureAddress azureAddress = new AzureAddress("192.168.1.15", null);
+        given(azureClient.getAddresses()).willReturn(asList(azureAddress));
+
+        // when
+        Iterable<DiscoveryNode> nodes = azureDiscoveryStrategy.discoverNodes();
+
+        // then
+        DiscoveryNode node = nodes.iterator().next();
+        assertEquals(azureAddress.getPrivateAddress(), node.getPrivateAddress().getHost());
+        assertEquals(node.getPrivateAddress(), node.getPublicAddress());
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newSpotAwarePlacementWithoutInstanceMetadata() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("instance-metadata-available", false);
+        properties.put("tenant-id", "tenant-id-1");
+        properties.put("client-id", "client-id-1");
+        properties.put("client-secret", "client-secret-1");
+        properties.put("subscription-id", "subscription-id-1");
+        properties.put("resource-group", "resource-group-1");
+        properties.put("spot-aware-placement", true);
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test
+    public void newTagWithExpressionSyntax() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("tenant-id", "subscription-id-1");
+        properties.put("client-id", "subscription-id-1");
+        properties.put("client-secret", "subscription-id-1");
+        properties.put("subscription-id", "subscription-id-1");
+        properties.put("resource-group", "resource-group-1");
+        properties.put("tag", "role=data (eu) or cp");
+        properties.put("instance-metadata-available", Boolean.FALSE);
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // no exception
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newTagAndTagExpression() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("tag", "env=prod");
+        properties.put("tag-expression", "role in (data,cp)");
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newNegativePublicIpRefreshSeconds() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("public-ip-refresh-seconds", -1);
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newInvalidHedgePercentile() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("hedge-percentile", 100);
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newScaleSetAndScaleSets() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("scale-set", "scale-set-1");
+        properties.put("scale-sets", "scale-set-2,hz-*");
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newLoadBalancerWithoutBackendPool() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("load-balancer", "load-balancer-1");
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newInvalidSubnet() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("subnet", "subnet-1");
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newInvalidAdditionalScopes() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("additional-scopes", "subscription-2");
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test
+    public void discoverNodesWithPort() {
+        // given
+        AzureAddress azureAddress = new AzureAddress(new InetAddressCache().get("192.168.1.15"), null, 5801);
+        given(azureClient.getAddresses()).willReturn(asList(azureAddress));
+
+        // when
+        Iterable<DiscoveryNode> nodes = azureDiscoveryStrategy.discoverNodes();
+
+        // then
+        Iterator<DiscoveryNode> iter = nodes.iterator();
+        DiscoveryNode node = iter.next();
+        assertEquals(azureAddress.getPrivateAddress(), node.getPrivateAddress().getHost());
+        assertEquals(5801, node.getPrivateAddress().getPort());
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void startRegistersLocalMember() throws Exception {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        DiscoveryNode localMember = new SimpleDiscoveryNode(new Address("192.168.1.15", PORT1));
+        AzureDiscoveryStrategy strategy = new AzureDiscoveryStrategy(localMember, properties, azureClient);
+
+        // when
+        strategy.start();
+
+        // then
+        verify(azureClient).register("192.168.1.15", PORT1);
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void newInvalidRegistryTtl() {
+        // given
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("registry-ttl-seconds", 0);
+
+        // when
+        new AzureDiscoveryStrategy(properties);
+
+        // then
+        // throw exception
+    }
+
+    @Test
+    public void discoverNodesSameZoneFirst() {
+        // given
+        InetAddressCache inetAddresses = new InetAddressCache();
+        AzureAddress otherZone = new AzureAddress(inetAddresses.get("192.168.1.15"), null, 5701, "vm-1", "eastus-1", "0");
+        AzureAddress sameZone = new AzureAddress(inetAddresses.get("192.168.1.16"), null, 5701, "vm-2", "eastus-2", "1");
+        given(azureClient.getAddresses()).willReturn(asList(otherZone, sameZone));
+        given(azureClient.getAvailabilityZone()).willReturn("eastus-2");
+
+        // when
+        azureDiscoveryStrategy.discoverNodes();
+        Iterable<DiscoveryNode> nodes = azureDiscoveryStrategy.discoverNodes();
+
+        // then
+        verify(azureClient).getAvailabilityZone();
+        Iterator<DiscoveryNode> iter = nodes.iterator();
+        DiscoveryNode node1 = iter.next();
+        assertEquals("192.168.1.16", node1.getPrivateAddress().getHost());
+        assertEquals("eastus-2", node1.getProperties().get(PartitionGroupMetaData.PARTITION_GROUP_ZONE));
+        assertEquals("1", node1.getProperties().get(AzureDiscoveryStrategy.FAULT_DOMAIN_PROPERTY));
+        assertEquals("vm-2", node1.getProperties().get(AzureDiscoveryStrategy.VM_ID_PROPERTY));
+        DiscoveryNode node2 = iter.next();
+        assertEquals("192.168.1.15", node2.getPrivateAddress().getHost());
+        assertEquals("eastus-1", node2.getProperties().get(PartitionGroupMetaData.PARTITION_GROUP_ZONE));
+        assertFalse(iter.hasNext());
+    }
+
     @Test
     public void discoverNodesEmpty() {
         // given
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AzureDnsApiTest {
+    private static final int TYPE_A = 1;
+    private static final int TYPE_SRV = 33;
+
+    private DnsStandIn dnsStandIn;
+
+    @Before
+    public void setUp()
+            throws Exception {
+        dnsStandIn = new DnsStandIn();
+    }
+
+    @After
+    public void tearDown() {
+        dnsStandIn.close();
+    }
+
+    @Test
+    public void addressesFromARecords() {
+        // given
+        dnsStandIn.addA("hazelcast.cluster.internal", "10.240.0.2", 60);
+        dnsStandIn.addA("hazelcast.cluster.internal", "10.240.0.3", 60);
+        AzureDnsApi azureDnsApi = new AzureDnsApi("Hazelcast.Cluster.Internal.", dnsStandIn.address());
+
+        // when
+        Collection<AzureAddress> result = azureDnsApi.addresses();
+
+        // then
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>();
+        expected.add(new AzureAddress("10.240.0.2", null));
+        expected.add(new AzureAddress("10.240.0.3", null));
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void addressesFromSrvRecordsWithAdditionalRecords() {
+        // given
+        dnsStandIn.addSrv("_hazelcast._tcp.cluster.internal", 5701, "member-1.cluster.internal", 60);
+        dnsStandIn.addSrv("_hazelcast._tcp.cluster.internal", 5702, "member-2.cluster.internal", 60);
+        dnsStandIn.addA("member-1.cluster.internal", "10.240.0.2", 60);
+        dnsStandIn.addA("member-2.cluster.internal", "10.240.0.3", 60);
+        AzureDnsApi azureDnsApi = new AzureDnsApi("_hazelcast._tcp.cluster.internal", dnsStandIn.address());
+
+        // when
+        Collection<AzureAddress> result = azureDnsApi.addresses();
+
+        // then
+        Set<AzureAddress> expected = new LinkedHashSet<AzureAddress>();
+        expected.add(address("10.240.0.2", 5701));
+        expected.add(address("10.240.0.3", 5702));
+        assertEquals(expected, result);
+        assertEquals(1, dnsStandIn.queries.get());
+    }
+
+    @Test
+    public void addressesFromSrvRecordsWithoutAdditionalRecords() {
+        // given
+        dnsStandIn.additionalRecords = false;
+        dnsStandIn.addSrv("_hazelcast._tcp.cluster.internal", 5701, "member-1.cluster.internal", 60);
+        dnsStandIn.addA("member-1.cluster.internal", "10.240.0.2", 60);
+        AzureDnsApi azureDnsApi = new AzureDnsApi("_hazelcast._tcp.cluster.internal", dnsStandIn.address());
+
+        // when
+        Collection<AzureAddress> result = azureDnsApi.addresses();
+
+        // then
+        assertEquals(1, result.size());
+        assertTrue(result.contains(address("10.240.0.2", 5701)));
+        assertEquals(2, dnsStandIn.queries.get());
+    }
+
+    @Test
+    public void addressesCachedForTtl() {
+        // given
+        dnsStandIn.addA("hazelcast.cluster.internal", "10.240.0.2", 60);
+        AzureDnsApi azureDnsApi = new AzureDnsApi("hazelcast.cluster.internal", dnsStandIn.address());
+
+        // when
+        Collection<AzureAddress> result1 = azureDnsApi.addresses();
+        Collection<AzureAddress> result2 = azureDnsApi.addresses();
+
+        // then
+        assertEquals(result1, result2);
+        assertEquals(1, dnsStandIn.queries.get());
+    }
+
+    @Test
+    public void addressesNotCachedForZeroTtl() {
+        // given
+        dnsStandIn.addA("hazelcast.cluster.internal", "10.240.0.2", 0);
+        AzureDnsApi azureDnsApi = new AzureDnsApi("hazelcast.cluster.internal", dnsStandIn.address());
+
+        // when
+        azureDnsApi.addresses();
+        azureDnsApi.addresses();
+
+        // then
+        assertEquals(2, dnsStandIn.queries.get());
+    }
+
+    @Test
+    public void addressesWhenNameNotFound() {
+        // given
+        AzureDnsApi azureDnsApi = new AzureDnsApi("hazelcast.cluster.internal", dnsStandIn.address());
+
+        // when
+        Collection<AzureAddress> result = azureDnsApi.addresses();
+
+        // then
+        assertTrue(result.isEmpty());
+    }
+
+    private static AzureAddress address(String ip, int port) {
+        return new AzureAddress(new InetAddressCache().get(ip), null, port);
+    }
+
+    /**
+     * Answers A and SRV queries from the registered records. The owner names of the answers are compressed, and the A
+     * records of the SRV targets are returned as additional records unless disabled.
+     */
+    private static final class DnsStandIn
+            implements Runnable {
+        private final DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        private final Map<String, List<byte[]>> records = new HashMap<String, List<byte[]>>();
+        private final Map<String, String> srvTargets = new HashMap<String, String>();
+        private final AtomicInteger queries = new AtomicInteger();
+        private volatile boolean additionalRecords = true;
+
+        private DnsStandIn()
+                throws SocketException {
+            Thread thread = new Thread(this, "dns-stand-in");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        String address() {
+            return String.format("127.0.0.1:%s", socket.getLocalPort());
+        }
+
+        synchronized void addA(String name, String ip, int ttl) {
+            byte[] rdata = new InetAddressCache().get(ip).getAddress();
+            add(name, TYPE_A, record(TYPE_A, ttl, rdata));
+        }
+
+        synchronized void addSrv(String name, int port, String target, int ttl) {
+            byte[] encodedTarget = encodeName(target);
+            ByteBuffer rdata = ByteBuffer.allocate(6 + encodedTarget.length);
+            rdata.putShort((short) 0).putShort((short) 0).putShort((short) port).put(encodedTarget);
+            add(name, TYPE_SRV, record(TYPE_SRV, ttl, rdata.array()));
+            srvTargets.put(name + "/" + target, target);
+        }
+
+        private void add(String name, int type, byte[] record) {
+            String key = name + "/" + type;
+            if (!records.containsKey(key)) {
+                records.put(key, new ArrayList<byte[]>());
+            }
+            records.get(key).add(record);
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[512];
+            while (!socket.isClosed()) {
+                try {
+                    DatagramPacket request = new DatagramPacket(buffer, buffer.length);
+                    socket.receive(request);
+                    queries.incrementAndGet();
+                    byte[] response = respond(ByteBuffer.wrap(buffer, 0, request.getLength()));
+                    socket.send(new DatagramPacket(response, response.length, request.getSocketAddress()));
+                } catch (Exception e) {
+                    // closed
+                }
+            }
+        }
+
+        private synchronized byte[] respond(ByteBuffer request) {
+            short id = request.getShort(0);
+            request.position(12);
+            StringBuilder name = new StringBuilder();
+            for (int length = request.get(); length != 0; length = request.get()) {
+                byte[] label = new byte[length];
+                request.get(label);
+                name.append(name.length() == 0 ? "" : ".").append(new String(label, StandardCharsets.US_ASCII));
+            }
+            int type = request.getShort();
+            request.getShort();
+            int questionEnd = request.position();
+
+            List<byte[]> answers = records.get(name + "/" + type);
+            List<byte[]> additional = new ArrayList<byte[]>();
+            if (answers != null && type == TYPE_SRV && additionalRecords) {
+                for (Map.Entry<String, String> target : srvTargets.entrySet()) {
+                    if (target.getKey().startsWith(name + "/") && records.containsKey(target.getValue() + "/" + TYPE_A)) {
+                        for (byte[] record : records.get(target.getValue() + "/" + TYPE_A)) {
+                            additional.add(concat(encodeName(target.getValue()), record));
+                        }
+                    }
+                }
+            }
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            int flags = answers == null ? 0x8183 : 0x8180;
+            int answerCount = answers == null ? 0 : answers.size();
+            response.write(ByteBuffer.allocate(12).putShort(id).putShort((short) flags).putShort((short) 1)
+                                     .putShort((short) answerCount).putShort((short) 0)
+                                     .putShort((short) additional.size()).array(), 0, 12);
+            response.write(request.array(), 12, questionEnd - 12);
+            for (int i = 0; i < answerCount; i++) {
+                byte[] answer = concat(new byte[]{(byte) 0xC0, 12}, answers.get(i));
+                response.write(answer, 0, answer.length);
+            }
+            for (byte[] record : additional) {
+                response.write(record, 0, record.length);
+            }
+            return response.toByteArray();
+        }
+
+        void close() {
+            socket.close();
+        }
+
+        private static byte[] record(int type, int ttl, byte[] rdata) {
+            return ByteBuffer.allocate(10 + rdata.length).putShort((short) type).putShort((short) 1).putInt(ttl)
+                             .putShort((short) rdata.length).put(rdata).array();
+        }
+
+        private static byte[] encodeName(String name) {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            for (String label : name.split("\\.")) {
+                encoded.write(label.length());
+                encoded.write(label.getBytes(StandardCharsets.US_ASCII), 0, label.length());
+            }
+            encoded.write(0);
+            return encoded.toByteArray();
+        }
+
+        private static byte[] concat(byte[] first, byte[] second) {
+            byte[] result = new byte[first.length + second.length];
+            System.arraycopy(first, 0, result, 0, first.length);
+            System.arraycopy(second, 0, result, first.length, second.length);
+            return result;
+        }
+    }
+}
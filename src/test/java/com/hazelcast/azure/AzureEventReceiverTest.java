@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+
+public class AzureEventReceiverTest {
+    private static final String NIC_ID = "/subscriptions/subscription-1/resourceGroups/resource-group-1/providers"
+            + "/Microsoft.Network/networkInterfaces/nic-1";
+    private static final String VM_ID = "/subscriptions/subscription-1/resourceGroups/resource-group-1/providers"
+            + "/Microsoft.Compute/virtualMachineScaleSets/scale-set-1/virtualMachines/0";
+    private static final String DISK_ID = "/subscriptions/subscription-1/resourceGroups/resource-group-1/providers"
+            + "/Microsoft.Compute/disks/disk-1";
+
+    private final List<String> changedResources = new CopyOnWriteArrayList<String>();
+    private AzureEventReceiver receiver;
+
+    @Before
+    public void setUp() {
+        receiver = new AzureEventReceiver(0, changedResources::add);
+    }
+
+    @After
+    public void tearDown() {
+        receiver.shutdown();
+    }
+
+    @Test
+    public void cloudEvents()
+            throws Exception {
+        // given
+        String events = String.format("[%s,%s,%s,%s]",
+                cloudEvent("Microsoft.Resources.ResourceWriteSuccess", NIC_ID),
+                cloudEvent("Microsoft.Resources.ResourceDeleteSuccess", VM_ID),
+                cloudEvent("Microsoft.Resources.ResourceWriteFailure", NIC_ID),
+                cloudEvent("Microsoft.Resources.ResourceWriteSuccess", DISK_ID));
+
+        // when
+        int status = post(events, "application/cloudevents-batch+json").status;
+
+        // then
+        assertEquals(200, status);
+        assertEquals(asList(NIC_ID, VM_ID), changedResources);
+    }
+
+    @Test
+    public void eventGridSchemaEvent()
+            throws Exception {
+        // given
+        String event = String.format("[{\"id\": \"1\", \"eventType\": \"Microsoft.Resources.ResourceActionSuccess\", "
+                + "\"subject\": \"%s\", \"data\": {}}]", VM_ID);
+
+        // when
+        post(event, "application/json");
+
+        // then
+        assertEquals(asList(VM_ID), changedResources);
+    }
+
+    @Test
+    public void cloudEventsValidation()
+            throws Exception {
+        // given
+        HttpURLConnection connection = open();
+        connection.setRequestMethod("OPTIONS");
+        connection.setRequestProperty("WebHook-Request-Origin", "eventgrid.azure.net");
+
+        // when
+        int status = connection.getResponseCode();
+
+        // then
+        assertEquals(200, status);
+        assertEquals("eventgrid.azure.net", connection.getHeaderField("WebHook-Allowed-Origin"));
+    }
+
+    @Test
+    public void eventGridSchemaValidation()
+            throws Exception {
+        // given
+        String event = "[{\"id\": \"1\", \"eventType\": \"Microsoft.EventGrid.SubscriptionValidationEvent\", "
+                + "\"subject\": \"\", \"data\": {\"validationCode\": \"code-1\"}}]";
+
+        // when
+        Response response = post(event, "application/json");
+
+        // then
+        assertEquals(200, response.status);
+        assertEquals("{\"validationResponse\":\"code-1\"}", response.body);
+        assertEquals(emptyList(), changedResources);
+    }
+
+    @Test
+    public void invalidEvent()
+            throws Exception {
+        // when
+        int status = post("not json", "application/json").status;
+
+        // then
+        assertEquals(400, status);
+        assertEquals(emptyList(), changedResources);
+    }
+
+    private static String cloudEvent(String type, String subject) {
+        return String.format("{\"specversion\": \"1.0\", \"id\": \"%s\", \"source\": \"/subscriptions/subscription-1\", "
+                + "\"type\": \"%s\", \"subject\": \"%s\", \"data\": {}}", type.hashCode(), type, subject);
+    }
+
+    private HttpURLConnection open()
+            throws IOException {
+        return (HttpURLConnection) new URL(String.format("http://localhost:%s/", receiver.getPort())).openConnection();
+    }
+
+    private Response post(String body, String contentType)
+            throws IOException {
+        HttpURLConnection connection = open();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", contentType);
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        InputStream stream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        String responseBody = "";
+        if (stream != null) {
+            Scanner scanner = new Scanner(stream, "UTF-8").useDelimiter("\\Z");
+            responseBody = scanner.hasNext() ? scanner.next() : "";
+        }
+        return new Response(status, responseBody);
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.hazelcast.internal.json.JsonObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.hazelcast.azure.AzureLoadBalancerApi.API_VERSION;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AzureLoadBalancerApiTest {
+    private static final String SUBSCRIPTION_ID = "subscription-1";
+    private static final String RESOURCE_GROUP = "resource-group-1";
+    private static final String LOAD_BALANCER = "load-balancer-1";
+    private static final String BACKEND_POOL = "backend-pool-1";
+    private static final String ACCESS_TOKEN = "access-token";
+    private static final String NIC_ID = "/subscriptions/subscription-1/resourceGroups/resource-group-1/providers"
+            + "/Microsoft.Network/networkInterfaces/nic-1";
+
+    private AzureLoadBalancerApi azureLoadBalancerApi;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Before
+    public void setUp() {
+        azureLoadBalancerApi = new AzureLoadBalancerApi(String.format("http://localhost:%s", wireMockRule.port()),
+                LOAD_BALANCER, BACKEND_POOL, null);
+    }
+
+    @Test
+    public void backendPoolWithNetworkInterfaces() {
+        // given
+        stubBackendPool("{\"properties\": {\"backendIPConfigurations\": ["
+                + "{\"id\": \"" + NIC_ID + "/ipConfigurations/ipconfig1\"},"
+                + "{\"id\": \"" + NIC_ID + "/ipConfigurations/IPCONFIG2\"}]}}");
+
+        // when
+        AzureLoadBalancerApi.BackendPool result = azureLoadBalancerApi.backendPool(SUBSCRIPTION_ID, RESOURCE_GROUP,
+                ACCESS_TOKEN);
+
+        // then
+        assertEquals(2, result.getIpConfigurationIds().size());
+        assertTrue(result.getIpConfigurationIds().contains(NIC_ID.toLowerCase() + "/ipconfigurations/ipconfig2"));
+        assertEquals(0, result.getIpAddresses().size());
+    }
+
+    @Test
+    public void backendPoolWithIpAddresses() {
+        // given
+        stubBackendPool("{\"properties\": {\"loadBalancerBackendAddresses\": ["
+                + "{\"properties\": {\"ipAddress\": \"10.240.0.2\"}},"
+                + "{\"properties\": {\"ipAddress\": \"10.240.0.3\"}}]}}");
+
+        // when
+        AzureLoadBalancerApi.BackendPool result = azureLoadBalancerApi.backendPool(SUBSCRIPTION_ID, RESOURCE_GROUP,
+                ACCESS_TOKEN);
+
+        // then
+        assertEquals(0, result.getIpConfigurationIds().size());
+        assertEquals(asList("10.240.0.2", "10.240.0.3"), result.getIpAddresses());
+    }
+
+    @Test
+    public void backendPoolUnchanged() {
+        // given
+        stubBackendPool("{\"properties\": {\"backendIPConfigurations\": []}}");
+        azureLoadBalancerApi.backendPool(SUBSCRIPTION_ID, RESOURCE_GROUP, ACCESS_TOKEN);
+
+        // when
+        AzureLoadBalancerApi.BackendPool result = azureLoadBalancerApi.backendPool(SUBSCRIPTION_ID, RESOURCE_GROUP,
+                ACCESS_TOKEN);
+
+        // then
+        assertNull(result);
+    }
+
+    @Test
+    public void networkInterfaces() {
+        // given
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/loadBalancers/%s"
+                + "/networkInterfaces?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, LOAD_BALANCER, API_VERSION)))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .willReturn(aResponse().withStatus(200).withBody("{\"value\": [{\"id\": \"" + NIC_ID + "\"}]}")));
+
+        // when
+        JsonObject result1 = azureLoadBalancerApi.networkInterfaces(SUBSCRIPTION_ID, RESOURCE_GROUP, ACCESS_TOKEN);
+        JsonObject result2 = azureLoadBalancerApi.networkInterfaces(SUBSCRIPTION_ID, RESOURCE_GROUP, ACCESS_TOKEN);
+
+        // then
+        assertEquals(NIC_ID, result1.get("value").asArray().get(0).asObject().getString("id", null));
+        assertNull(result2);
+    }
+
+    private static void stubBackendPool(String body) {
+        stubFor(get(urlEqualTo(String.format("/subscriptions/%s/resourceGroups/%s/providers/Microsoft.Network/loadBalancers/%s"
+                + "/backendAddressPools/%s?api-version=%s", SUBSCRIPTION_ID, RESOURCE_GROUP, LOAD_BALANCER, BACKEND_POOL,
+                API_VERSION)))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .willReturn(aResponse().withStatus(200).withBody(body)));
+    }
+}
@@ -29,6 +29,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static com.hazelcast.azure.AzureMetadataApi.API_VERSION;
+import static com.hazelcast.azure.AzureMetadataApi.COMPUTE_API_VERSION;
 import static com.hazelcast.azure.AzureMetadataApi.RESOURCE;
 import static org.junit.Assert.assertEquals;
 
@@ -50,7 +51,7 @@ public class AzureMetadataApiTest {
     public void setUp() {
         azureMetadataApi = new AzureMetadataApi(String.format("http://localhost:%s", wireMockRule.port()), new HashMap<String, String>());
         //given
-        stubFor(get(urlEqualTo(String.format("/metadata/instance/compute?api-version=%s", API_VERSION)))
+        stubFor(get(urlEqualTo(String.format("/metadata/instance/compute?api-version=%s", COMPUTE_API_VERSION)))
                 .withHeader("Metadata", equalTo("true"))
                 .willReturn(aResponse().withStatus(200).withBody(metadataResponse())));
     }
@@ -100,6 +101,24 @@ public class AzureMetadataApiTest {
         assertEquals(PLATFORM_FAULT_DOMAIN, result);
     }
 
+    @Test
+    public void updateDomain() {
+        // when
+        String result = azureMetadataApi.updateDomain();
+
+        // then
+        assertEquals("0", result);
+    }
+
+    @Test
+    public void priority() {
+        // when
+        String result = azureMetadataApi.priority();
+
+        // then
+        assertEquals("Spot", result);
+    }
+
     @Test
     public void scaleSet() {
         // when
@@ -154,6 +173,7 @@ public class AzureMetadataApiTest {
                 + "  },\n"
                 + "  \"platformFaultDomain\": \"%s\",\n"
                 + "  \"platformUpdateDomain\": \"0\",\n"
+                + "  \"priority\": \"Spot\",\n"
                 + "  \"provider\": \"Microsoft.Compute\",\n"
                 + "  \"publicKeys\": [],\n"
                 + "  \"publisher\": \"bitnami\",\n"
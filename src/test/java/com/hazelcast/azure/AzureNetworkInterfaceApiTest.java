@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.hazelcast.internal.json.JsonObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AzureNetworkInterfaceApiTest {
+    private static final String ACCESS_TOKEN = "access-token";
+    private static final String NIC_LIST = "/subscriptions/subid/resourceGroups/rg1/providers/Microsoft.Network/networkInterfaces";
+
+    private AzureNetworkInterfaceApi azureNetworkInterfaceApi;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Before
+    public void setUp() {
+        azureNetworkInterfaceApi = new AzureNetworkInterfaceApi(String.format("http://localhost:%s", wireMockRule.port()),
+                false, null);
+    }
+
+    @Test
+    public void getInParallel() {
+        // given
+        stubNic("nic-1");
+        stubNic("nic-2");
+
+        // when
+        JsonObject result = azureNetworkInterfaceApi.get(asList(NIC_LIST + "/nic-1", NIC_LIST + "/nic-2"), ACCESS_TOKEN);
+
+        // then
+        assertEquals(2, result.get("value").asArray().size());
+        assertEquals("nic-1", result.get("value").asArray().get(0).asObject().getString("name", null));
+        assertEquals("nic-2", result.get("value").asArray().get(1).asObject().getString("name", null));
+    }
+
+    @Test
+    public void getWhenIdsUnchanged() {
+        // given
+        stubNic("nic-1");
+        azureNetworkInterfaceApi.get(asList(NIC_LIST + "/nic-1"), ACCESS_TOKEN);
+
+        // when
+        JsonObject result = azureNetworkInterfaceApi.get(null, ACCESS_TOKEN);
+
+        // then
+        assertNull(result);
+        verify(1, getRequestedFor(urlPathMatching(NIC_LIST + "/.*")));
+    }
+
+    @Test
+    public void getWhenIdsChanged() {
+        // given
+        stubNic("nic-1");
+        stubNic("nic-2");
+        azureNetworkInterfaceApi.get(asList(NIC_LIST + "/nic-1"), ACCESS_TOKEN);
+
+        // when
+        JsonObject result = azureNetworkInterfaceApi.get(asList(NIC_LIST + "/nic-2"), ACCESS_TOKEN);
+
+        // then
+        assertEquals(1, result.get("value").asArray().size());
+        assertEquals("nic-2", result.get("value").asArray().get(0).asObject().getString("name", null));
+        verify(1, getRequestedFor(urlPathEqualTo(NIC_LIST + "/nic-1")));
+    }
+
+    @Test
+    public void getWhenNicDeleted() {
+        // given
+        stubNic("nic-1");
+        stubFor(get(urlPathEqualTo(NIC_LIST + "/nic-2")).willReturn(aResponse().withStatus(404).withBody("not found")));
+
+        // when
+        JsonObject result1 = azureNetworkInterfaceApi.get(asList(NIC_LIST + "/nic-1", NIC_LIST + "/nic-2"), ACCESS_TOKEN);
+        JsonObject result2 = azureNetworkInterfaceApi.get(null, ACCESS_TOKEN);
+
+        // then
+        assertEquals(1, result1.get("value").asArray().size());
+        assertEquals("nic-1", result1.get("value").asArray().get(0).asObject().getString("name", null));
+        assertNull(result2);
+        verify(1, getRequestedFor(urlPathEqualTo(NIC_LIST + "/nic-2")));
+    }
+
+    @Test(expected = RestClientException.class)
+    public void getWhenRequestFails() {
+        // given
+        stubNic("nic-1");
+        stubFor(get(urlPathEqualTo(NIC_LIST + "/nic-2")).willReturn(aResponse().withStatus(500).withBody("error")));
+
+        // when
+        azureNetworkInterfaceApi.get(asList(NIC_LIST + "/nic-1", NIC_LIST + "/nic-2"), ACCESS_TOKEN);
+
+        // then
+        // throws exception
+    }
+
+    private static void stubNic(String name) {
+        stubFor(get(urlPathEqualTo(NIC_LIST + "/" + name)).willReturn(aResponse().withStatus(200)
+                .withBody(String.format("{\"name\": \"%s\", \"properties\": {}}", name))));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class AzureScopeTest {
+
+    @Test
+    public void parseList() {
+        // given
+        String spec = "subscription-1/resource-group-1, subscription-2/resource-group-2/scale-set-2";
+
+        // when
+        List<AzureScope> scopes = AzureScope.parseList(spec);
+
+        // then
+        assertEquals(asList(new AzureScope("subscription-1", "resource-group-1", null),
+                new AzureScope("subscription-2", "resource-group-2", "scale-set-2")), scopes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseListWithoutResourceGroup() {
+        AzureScope.parseList("subscription-1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseListWithEmptySegment() {
+        AzureScope.parseList("subscription-1//scale-set-1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseListWithTooManySegments() {
+        AzureScope.parseList("subscription-1/resource-group-1/scale-set-1/other");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AzureVirtualMachineApiTest {
+    private static final String ACCESS_TOKEN = "access-token";
+    private static final String VM_LIST = "/subscriptions/subid/resourceGroups/rg1/providers/Microsoft.Compute/virtualMachines";
+
+    private AzureVirtualMachineApi azureVirtualMachineApi;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Before
+    public void setUp() {
+        azureVirtualMachineApi = new AzureVirtualMachineApi(String.format("http://localhost:%s", wireMockRule.port()), null);
+    }
+
+    @Test
+    public void place() {
+        // given
+        stubVmList(String.format("{\"value\": [{\"id\": \"%s/vm1\", \"location\": \"eastus\", \"zones\": [\"2\"],"
+                + " \"properties\": {\"platformFaultDomain\": 0}}]}", VM_LIST));
+        Collection<AzureAddress> addresses = Collections.singletonList(address("10.0.0.1", "vm1"));
+
+        // when
+        Collection<AzureAddress> result1 = azureVirtualMachineApi.place(addresses, ACCESS_TOKEN);
+        Collection<AzureAddress> result2 = azureVirtualMachineApi.place(addresses, ACCESS_TOKEN);
+
+        // then
+        AzureAddress address = result1.iterator().next();
+        assertEquals("eastus-2", address.getZone());
+        assertEquals("0", address.getFaultDomain());
+        assertEquals("eastus-2", result2.iterator().next().getZone());
+        verify(1, getRequestedFor(urlPathEqualTo(VM_LIST)));
+    }
+
+    @Test
+    public void placeWithUnknownVm() {
+        // given
+        stubVmList(String.format("{\"value\": [{\"id\": \"%s/vm1\", \"location\": \"eastus\","
+                + " \"properties\": {\"platformFaultDomain\": 1}}]}", VM_LIST));
+        Collection<AzureAddress> addresses = asList(address("10.0.0.1", "vm1"), address("10.0.0.2", "deleted-vm"));
+
+        // when
+        azureVirtualMachineApi.place(addresses, ACCESS_TOKEN);
+        Collection<AzureAddress> result = azureVirtualMachineApi.place(addresses, ACCESS_TOKEN);
+
+        // then
+        Iterator<AzureAddress> iterator = result.iterator();
+        assertEquals("1", iterator.next().getFaultDomain());
+        assertNull(iterator.next().getFaultDomain());
+        verify(1, getRequestedFor(urlPathEqualTo(VM_LIST)));
+    }
+
+    @Test
+    public void placeWhenVmListFails() {
+        // given
+        stubFor(get(urlPathEqualTo(VM_LIST)).willReturn(aResponse().withStatus(500)));
+        Collection<AzureAddress> addresses = Collections.singletonList(address("10.0.0.1", "vm1"));
+
+        // when
+        azureVirtualMachineApi.place(addresses, ACCESS_TOKEN);
+        Collection<AzureAddress> result = azureVirtualMachineApi.place(addresses, ACCESS_TOKEN);
+
+        // then
+        assertNull(result.iterator().next().getZone());
+        verify(1, getRequestedFor(urlPathEqualTo(VM_LIST)));
+    }
+
+    private static void stubVmList(String body) {
+        stubFor(get(urlPathEqualTo(VM_LIST)).willReturn(aResponse().withStatus(200).withBody(body)));
+    }
+
+    private static AzureAddress address(String ip, String vmName) {
+        try {
+            return new AzureAddress(InetAddress.getByName(ip), null, 0, String.format("%s/%s", VM_LIST, vmName), null, null);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.hazelcast.internal.json.JsonObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ConditionalGetTest {
+    private static final String API_ENDPOINT = "/some/endpoint";
+    private static final String ACCESS_TOKEN = "access-token";
+    private static final String BODY_RESPONSE = "{\"value\":\"some body response\"}";
+    private static final String ETAG = "\"etag-1\"";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort().gzipDisabled(true));
+
+    private final ConditionalGet conditionalGet = new ConditionalGet();
+
+    private String url;
+
+    @Before
+    public void setUp() {
+        url = String.format("http://localhost:%s%s", wireMockRule.port(), API_ENDPOINT);
+    }
+
+    @Test
+    public void getWithEtag() {
+        // given
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .withHeader("If-None-Match", absent())
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", ETAG).withBody(BODY_RESPONSE)));
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .withHeader("If-None-Match", equalTo(ETAG))
+                .willReturn(aResponse().withStatus(304)));
+
+        // when
+        JsonObject result1 = conditionalGet.get(url, ACCESS_TOKEN);
+        JsonObject result2 = conditionalGet.get(url, ACCESS_TOKEN);
+
+        // then
+        assertEquals(BODY_RESPONSE, result1.toString());
+        assertNull(result2);
+    }
+
+    @Test
+    public void getWithoutEtag() {
+        // given
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .withHeader("Authorization", equalTo(String.format("Bearer %s", ACCESS_TOKEN)))
+                .willReturn(aResponse().withStatus(200).withBody(BODY_RESPONSE)));
+
+        // when
+        JsonObject result1 = conditionalGet.get(url, ACCESS_TOKEN);
+        JsonObject result2 = conditionalGet.get(url, ACCESS_TOKEN);
+        conditionalGet.reset();
+        JsonObject result3 = conditionalGet.get(url, ACCESS_TOKEN);
+
+        // then
+        assertEquals(BODY_RESPONSE, result1.toString());
+        assertNull(result2);
+        assertEquals(BODY_RESPONSE, result3.toString());
+    }
+
+    @Test
+    public void getWithoutEtagGzipped()
+            throws Exception {
+        // given
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(BODY_RESPONSE.getBytes(StandardCharsets.UTF_8));
+        }
+        stubFor(get(urlEqualTo(API_ENDPOINT)).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Encoding", "gzip").withBody(gzipped.toByteArray())));
+
+        // when
+        JsonObject result1 = conditionalGet.get(url, ACCESS_TOKEN);
+        JsonObject result2 = conditionalGet.get(url, ACCESS_TOKEN);
+
+        // then
+        assertEquals(BODY_RESPONSE, result1.toString());
+        assertNull(result2);
+    }
+
+    @Test
+    public void getChanged() {
+        // given
+        stubFor(get(urlEqualTo(API_ENDPOINT)).willReturn(aResponse().withStatus(200).withBody(BODY_RESPONSE)));
+        conditionalGet.get(url, ACCESS_TOKEN);
+        stubFor(get(urlEqualTo(API_ENDPOINT)).willReturn(aResponse().withStatus(200)
+                .withBody("{\"value\":\"other body response\"}")));
+
+        // when
+        JsonObject result = conditionalGet.get(url, ACCESS_TOKEN);
+
+        // then
+        assertEquals("other body response", result.getString("value", null));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DiscoveryChainTest {
+    private static final long NO_REFRESH = Long.MAX_VALUE;
+    private static final long LONG_BUDGET_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final List<AzureAddress> FAST_ADDRESSES = singletonList(new AzureAddress("10.0.0.1", null));
+    private static final List<AzureAddress> AUTHORITATIVE_ADDRESSES = asList(new AzureAddress("10.0.0.1", null),
+            new AzureAddress("10.0.0.2", null));
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DiscoveryChain chain;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (chain != null) {
+            chain.shutdown();
+        }
+    }
+
+    @Test
+    public void addressesFromFirstBackend() {
+        // given
+        AtomicInteger authoritativeCalls = new AtomicInteger();
+        chain = new DiscoveryChain(asList(
+                backend(() -> FAST_ADDRESSES, LONG_BUDGET_MILLIS),
+                backend(counting(authoritativeCalls, () -> AUTHORITATIVE_ADDRESSES), 0)), NO_REFRESH);
+
+        // when
+        Collection<AzureAddress> result1 = chain.addresses();
+        Collection<AzureAddress> result2 = chain.addresses();
+
+        // then
+        assertEquals(FAST_ADDRESSES, result1);
+        assertEquals(FAST_ADDRESSES, result2);
+        assertTrue(authoritativeCalls.get() <= 1);
+    }
+
+    @Test
+    public void addressesFromNextBackendWhenFirstHasNoMembers() {
+        // given
+        chain = new DiscoveryChain(asList(
+                backend(ArrayList::new, LONG_BUDGET_MILLIS),
+                backend(() -> AUTHORITATIVE_ADDRESSES, 0)), NO_REFRESH);
+
+        // when
+        long start = System.nanoTime();
+        Collection<AzureAddress> result = chain.addresses();
+
+        // then
+        assertEquals(AUTHORITATIVE_ADDRESSES, result);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(LONG_BUDGET_MILLIS));
+    }
+
+    @Test
+    public void addressesFromNextBackendWhenFirstExceedsBudget() {
+        // given
+        AtomicInteger slowCalls = new AtomicInteger();
+        chain = new DiscoveryChain(asList(
+                backend(counting(slowCalls, this::blocked), 10),
+                backend(() -> AUTHORITATIVE_ADDRESSES, 0)), NO_REFRESH);
+
+        // when
+        Collection<AzureAddress> result1 = chain.addresses();
+        Collection<AzureAddress> result2 = chain.addresses();
+
+        // then
+        assertEquals(AUTHORITATIVE_ADDRESSES, result1);
+        assertEquals(AUTHORITATIVE_ADDRESSES, result2);
+        assertEquals("the call still in flight is reused", 1, slowCalls.get());
+    }
+
+    @Test
+    public void refreshAuthoritativeBackendInBackground() throws Exception {
+        // given
+        CountDownLatch refreshed = new CountDownLatch(1);
+        chain = new DiscoveryChain(asList(
+                backend(() -> FAST_ADDRESSES, LONG_BUDGET_MILLIS),
+                backend(() -> {
+                    refreshed.countDown();
+                    return AUTHORITATIVE_ADDRESSES;
+                }, 0)), NO_REFRESH);
+
+        // when
+        Collection<AzureAddress> result = chain.addresses();
+
+        // then
+        assertEquals(FAST_ADDRESSES, result);
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = RestClientException.class)
+    public void addressesWhenAuthoritativeBackendFails() {
+        // given
+        chain = new DiscoveryChain(asList(
+                backend(ArrayList::new, LONG_BUDGET_MILLIS),
+                backend(() -> {
+                    throw new RestClientException("Forbidden", 403);
+                }, 0)), NO_REFRESH);
+
+        // when
+        chain.addresses();
+
+        // then
+        // throw exception
+    }
+
+    private Collection<AzureAddress> blocked() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return FAST_ADDRESSES;
+    }
+
+    private static Supplier<Collection<AzureAddress>> counting(AtomicInteger calls,
+                                                              Supplier<Collection<AzureAddress>> addresses) {
+        return () -> {
+            calls.incrementAndGet();
+            return addresses.get();
+        };
+    }
+
+    private static DiscoveryChain.Backend backend(Supplier<Collection<AzureAddress>> addresses, long budgetMillis) {
+        return new DiscoveryChain.Backend("backend", addresses, budgetMillis);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.hazelcast.internal.json.JsonArray;
+import com.hazelcast.internal.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Compares the latency of the {@link HttpTransport} implementations for the requests of a discovery round against a local
+ * stand-in for Azure Instance Metadata Service and Azure Resource Manager.
+ * <p>
+ * {@code JdkHttpTransport} is compiled only on Java 11+ into {@code META-INF/versions/11}, which the {@code java11-transport}
+ * profile adds to the test classpath. On Java 8 only {@link UrlConnectionTransport} is measured. The stand-in speaks plain
+ * HTTP/1.1, so the numbers show the cost of the clients and of connection reuse, not the gain of HTTP/2 multiplexing over
+ * TLS.
+ * <p>
+ * The benchmark is not part of the regular test run. Execute it with:
+ * <pre>
+ * mvn test -Dtest=HttpTransportBenchmark -Dbenchmark.requests=2000 -Dbenchmark.vms=100
+ * </pre>
+ * Supported system properties:
+ * <ul>
+ *     <li>{@code benchmark.requests} - number of measured requests per transport and endpoint, default "500"</li>
+ *     <li>{@code benchmark.warmup-requests} - number of requests per transport and endpoint sent before measuring, default
+ *     "200"</li>
+ *     <li>{@code benchmark.vms} - number of network interfaces in the ARM response, default "50"</li>
+ * </ul>
+ */
+public class HttpTransportBenchmark {
+    private static final String JDK_TRANSPORT = "com.hazelcast.azure.JdkHttpTransport";
+    private static final String METADATA_PATH = "/metadata/instance/compute";
+    private static final String TOKEN_PATH = "/metadata/identity/oauth2/token";
+    private static final String NETWORK_INTERFACES_PATH = "/subscriptions/subscription-1/resourceGroups/resource-group-1"
+            + "/providers/Microsoft.Compute/virtualMachineScaleSets/scale-set-1/networkInterfaces";
+    private static final String REPORT_ROW = "%-24s %-20s %-12s %-12s %-12s";
+    private static final double[] PERCENTILES = {0.5, 0.99};
+
+    private final List<String> report = new ArrayList<String>();
+
+    private WireMockServer azureStandIn;
+
+    @Before
+    public void setUp() {
+        azureStandIn = new WireMockServer(wireMockConfig().dynamicPort());
+        azureStandIn.start();
+        azureStandIn.stubFor(get(urlPathEqualTo(METADATA_PATH))
+                .willReturn(aResponse().withStatus(200).withBody("{\"subscriptionId\":\"subscription-1\"}")));
+        azureStandIn.stubFor(get(urlPathEqualTo(TOKEN_PATH))
+                .willReturn(aResponse().withStatus(200).withBody("{\"access_token\":\"access-token\"}")));
+        azureStandIn.stubFor(get(urlPathEqualTo(NETWORK_INTERFACES_PATH))
+                .willReturn(aResponse().withStatus(200)
+                        .withBody(networkInterfacesResponse(Integer.getInteger("benchmark.vms", 50)))));
+    }
+
+    @After
+    public void tearDown() {
+        azureStandIn.stop();
+        for (String line : report) {
+            System.out.println(line);
+        }
+    }
+
+    @Test
+    public void transports()
+            throws Exception {
+        int requests = Integer.getInteger("benchmark.requests", 500);
+        int warmupRequests = Integer.getInteger("benchmark.warmup-requests", 200);
+
+        report.add(String.format(REPORT_ROW, "transport", "endpoint", "p50-us", "p99-us", "mean-us"));
+        for (Map.Entry<String, HttpTransport> transport : availableTransports().entrySet()) {
+            for (String path : Arrays.asList(METADATA_PATH, TOKEN_PATH, NETWORK_INTERFACES_PATH)) {
+                String url = String.format("http://127.0.0.1:%s%s", azureStandIn.port(), path);
+                measure(transport.getValue(), url, warmupRequests);
+                long[] micros = measure(transport.getValue(), url, requests);
+                report.add(String.format(REPORT_ROW, transport.getKey(), path.substring(path.lastIndexOf('/') + 1),
+                        percentile(micros, PERCENTILES[0]), percentile(micros, PERCENTILES[1]), mean(micros)));
+            }
+        }
+    }
+
+    private static Map<String, HttpTransport> availableTransports()
+            throws Exception {
+        Map<String, HttpTransport> transports = new LinkedHashMap<String, HttpTransport>();
+        transports.put("UrlConnectionTransport", new UrlConnectionTransport());
+        try {
+            transports.put("JdkHttpTransport", (HttpTransport) Class.forName(JDK_TRANSPORT).newInstance());
+        } catch (ClassNotFoundException e) {
+            System.out.println("JdkHttpTransport is not on the classpath, run the benchmark on Java 11+");
+        }
+        return transports;
+    }
+
+    private static long[] measure(HttpTransport transport, String url, int requests) {
+        long[] micros = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            RestClient.create(url)
+                      .withHeader("Metadata", "true")
+                      .withHeader("Authorization", "Bearer access-token")
+                      .withTransport(transport)
+                      .getJson();
+            micros[i] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        }
+        return micros;
+    }
+
+    private static long percentile(long[] values, double percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    private static long mean(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static String networkInterfacesResponse(int vmCount) {
+        JsonArray interfaces = new JsonArray();
+        for (int i = 0; i < vmCount; i++) {
+            JsonObject ipConfiguration = new JsonObject()
+                    .add("properties", new JsonObject().add("privateIPAddress", String.format("10.0.%s.%s", i / 250, i % 250)));
+            JsonObject properties = new JsonObject()
+                    .add("virtualMachine", new JsonObject().add("id", "vm-" + i))
+                    .add("ipConfigurations", new JsonArray().add(ipConfiguration));
+            interfaces.add(new JsonObject().add("properties", properties));
+        }
+        return new JsonObject().add("value", interfaces).toString();
+    }
+}
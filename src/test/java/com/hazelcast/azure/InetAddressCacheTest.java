@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class InetAddressCacheTest {
+    private final InetAddressCache cache = new InetAddressCache();
+
+    @Test
+    public void ipv4() throws Exception {
+        // given
+        String ip = "10.240.0.255";
+
+        // when
+        InetAddress result = cache.get(ip);
+
+        // then
+        assertEquals(InetAddress.getByName(ip), result);
+        assertSame(result, cache.get(new String(ip)));
+    }
+
+    @Test
+    public void ipv6() throws Exception {
+        // given
+        String full = "fd00:0:0:0:0:0:a:1";
+        String compressed = "fd00::a:1";
+
+        // when
+        InetAddress result = cache.get(compressed);
+
+        // then
+        assertEquals(InetAddress.getByName(full), result);
+        assertSame(result, cache.get(full));
+        assertEquals(InetAddress.getByName("::1"), cache.get("::1"));
+        assertEquals(InetAddress.getByName("1::"), cache.get("1::"));
+    }
+
+    @Test
+    public void notALiteral() throws Exception {
+        assertEquals(InetAddress.getByName("::ffff:10.0.0.1"), cache.get("::ffff:10.0.0.1"));
+        assertEquals(InetAddress.getByName("localhost"), cache.get("localhost"));
+        assertNull(cache.get(null));
+    }
+
+    @Test
+    public void parseIpv4() {
+        assertEquals(0x0AF00002L, InetAddressCache.parseIpv4("10.240.0.2"));
+        assertEquals(0xFFFFFFFFL, InetAddressCache.parseIpv4("255.255.255.255"));
+        assertEquals(-1, InetAddressCache.parseIpv4("10.240.0"));
+        assertEquals(-1, InetAddressCache.parseIpv4("10.240.0.2.1"));
+        assertEquals(-1, InetAddressCache.parseIpv4("10.240.0.256"));
+        assertEquals(-1, InetAddressCache.parseIpv4("10..0.2"));
+        assertEquals(-1, InetAddressCache.parseIpv4("fd00::1"));
+    }
+
+    @Test
+    public void retainsOnlyPreviousRound() {
+        // given
+        InetAddress first = cache.get("10.0.0.1");
+
+        // when
+        cache.nextRound();
+        InetAddress second = cache.get("10.0.0.1");
+        cache.nextRound();
+        cache.nextRound();
+        InetAddress third = cache.get("10.0.0.1");
+
+        // then
+        assertSame(first, second);
+        assertNotSame(second, third);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.azure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests the Java 11 transport from the multi-release output, which comes first on the test classpath like in the
+ * multi-release jar. Skipped when the build does not produce it, i.e. on Java 8.
+ */
+public class JdkHttpTransportTest {
+    private static final String JDK_HTTP_TRANSPORT = "com.hazelcast.azure.JdkHttpTransport";
+
+    private Class<?> transportClass;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Before
+    public void setUp() {
+        try {
+            transportClass = Class.forName(JDK_HTTP_TRANSPORT);
+        } catch (ClassNotFoundException e) {
+            transportClass = null;
+        }
+        assumeTrue(transportClass != null);
+    }
+
+    @Test
+    public void sendWithHttp11OverPlainHttp()
+            throws Exception {
+        // given
+        stubFor(get(urlEqualTo("/metadata"))
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "etag-1").withBody("response")));
+        HttpTransport transport = (HttpTransport) transportClass.getDeclaredConstructor().newInstance();
+
+        // when
+        try (HttpTransport.Response response = transport.send("GET",
+                String.format("http://localhost:%s/metadata", wireMockRule.port()),
+                Collections.singletonMap("Metadata", "true"), null)) {
+
+            // then
+            assertEquals(200, response.getStatus());
+            assertEquals("etag-1", response.getHeader("ETag"));
+            assertEquals("response", read(response));
+        }
+        verify(getRequestedFor(urlEqualTo("/metadata"))
+                .withHeader("Metadata", equalTo("true"))
+                .withHeader("Upgrade", absent()));
+    }
+
+    @Test
+    public void defaultTransport() {
+        assertEquals(JDK_HTTP_TRANSPORT, HttpTransports.defaultTransport().getClass().getName());
+    }
+
+    private static String read(HttpTransport.Response response)
+            throws Exception {
+        StringBuilder result = new StringBuilder();
+        try (Reader reader = new InputStreamReader(response.getBody(), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[256];
+            for (int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+                result.append(buffer, 0, n);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class RequestHedgerTest {
+    private static final long SLOW_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long WARM_UP_MILLIS = 50;
+
+    @Test
+    public void executeWithoutSamples()
+            throws Exception {
+        // given
+        RequestHedger hedger = new RequestHedger("test", 50, 100);
+
+        // when
+        String result = hedger.execute(() -> "result");
+
+        // then
+        assertEquals("result", result);
+        assertEquals(1, hedger.getRequests());
+        assertEquals(0, hedger.getHedges());
+    }
+
+    @Test
+    public void executeSlowRequest()
+            throws Exception {
+        // given
+        RequestHedger hedger = new RequestHedger("test", 50, 100);
+        warmUp(hedger);
+        final CountDownLatch slowRequestReleased = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger();
+
+        // when
+        String result = hedger.execute(() -> {
+            if (executions.incrementAndGet() == 1) {
+                slowRequestReleased.await(SLOW_MILLIS, TimeUnit.MILLISECONDS);
+                return "slow";
+            }
+            return "hedged";
+        });
+        slowRequestReleased.countDown();
+
+        // then
+        assertEquals("hedged", result);
+        assertEquals(1, hedger.getHedges());
+        assertEquals(1, hedger.getHedgeWins());
+    }
+
+    @Test
+    public void executeSlowRequestWithoutBudget()
+            throws Exception {
+        // given
+        RequestHedger hedger = new RequestHedger("test", 50, 0);
+        warmUp(hedger);
+        final AtomicInteger executions = new AtomicInteger();
+
+        // when
+        String result = hedger.execute(() -> {
+            executions.incrementAndGet();
+            Thread.sleep(100);
+            return "slow";
+        });
+
+        // then
+        assertEquals("slow", result);
+        assertEquals(1, executions.get());
+        assertEquals(0, hedger.getHedges());
+    }
+
+    @Test
+    public void executeWhenSlowRequestFails()
+            throws Exception {
+        // given
+        RequestHedger hedger = new RequestHedger("test", 50, 100);
+        warmUp(hedger);
+        final AtomicInteger executions = new AtomicInteger();
+
+        // when
+        String result = hedger.execute(() -> {
+            if (executions.incrementAndGet() == 1) {
+                Thread.sleep(100);
+                throw new RestClientException("failure", 500);
+            }
+            Thread.sleep(200);
+            return "hedged";
+        });
+
+        // then
+        assertEquals("hedged", result);
+        assertEquals(1, hedger.getHedgeWins());
+    }
+
+    @Test(expected = RestClientException.class)
+    public void executeFailure()
+            throws Exception {
+        // given
+        RequestHedger hedger = new RequestHedger("test", 50, 100);
+
+        // when
+        hedger.execute(() -> {
+            throw new RestClientException("failure", 500);
+        });
+
+        // then
+        // throw exception
+    }
+
+    /**
+     * Records latencies long enough that the first request of a test starts before it is hedged, even on a loaded machine.
+     */
+    private static void warmUp(RequestHedger hedger)
+            throws Exception {
+        for (int i = 0; i < RequestHedger.MIN_SAMPLES; i++) {
+            hedger.execute(() -> {
+                Thread.sleep(WARM_UP_MILLIS);
+                return "warm-up";
+            });
+        }
+    }
+}
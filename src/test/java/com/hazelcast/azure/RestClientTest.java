@@ -16,10 +16,20 @@
 package com.hazelcast.azure;
 
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.hazelcast.internal.json.JsonValue;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
@@ -27,7 +37,9 @@ import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class RestClientTest {
     private static final String API_ENDPOINT = "/some/endpoint";
@@ -35,7 +47,7 @@ public class RestClientTest {
     private static final String BODY_RESPONSE = "some body response";
 
     @Rule
-    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort().gzipDisabled(true));
 
     private String address;
 
@@ -75,6 +87,74 @@ public class RestClientTest {
         assertEquals(BODY_RESPONSE, result);
     }
 
+    @Test
+    public void getNotModified() {
+        // given
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .withHeader("If-None-Match", equalTo("etag-1"))
+                .willReturn(aResponse().withStatus(304)));
+
+        // when
+        String result = RestClient.create(String.format("%s%s", address, API_ENDPOINT))
+                                  .withHeader("If-None-Match", "etag-1")
+                                  .get();
+
+        // then
+        assertNull(result);
+    }
+
+    @Test
+    public void getWithResponseEtagAndDigest() throws Exception {
+        // given
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "etag-1").withBody(BODY_RESPONSE)));
+
+        // when
+        RestClient restClient = RestClient.create(String.format("%s%s", address, API_ENDPOINT)).withResponseDigest();
+        String result = restClient.get();
+
+        // then
+        assertEquals(BODY_RESPONSE, result);
+        assertEquals("etag-1", restClient.getResponseEtag());
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(BODY_RESPONSE.getBytes("UTF-8")),
+                restClient.getResponseDigest());
+    }
+
+    @Test
+    public void getGzipEncoded() throws Exception {
+        // given
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (OutputStream stream = new GZIPOutputStream(body)) {
+            stream.write(BODY_RESPONSE.getBytes(StandardCharsets.UTF_8));
+        }
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .withHeader("Accept-Encoding", equalTo("gzip, deflate"))
+                .willReturn(aResponse().withStatus(200).withHeader("Content-Encoding", "gzip").withBody(body.toByteArray())));
+
+        // when
+        String result = RestClient.create(String.format("%s%s", address, API_ENDPOINT)).get();
+
+        // then
+        assertEquals(BODY_RESPONSE, result);
+    }
+
+    @Test
+    public void getJsonDeflateEncoded() throws Exception {
+        // given
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (OutputStream stream = new DeflaterOutputStream(body)) {
+            stream.write("{\"value\":[1,2]}".getBytes(StandardCharsets.UTF_8));
+        }
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .willReturn(aResponse().withStatus(200).withHeader("Content-Encoding", "deflate").withBody(body.toByteArray())));
+
+        // when
+        JsonValue result = RestClient.create(String.format("%s%s", address, API_ENDPOINT)).getJson();
+
+        // then
+        assertEquals(2, result.asObject().get("value").asArray().size());
+    }
+
     @Test(expected = RestClientException.class)
     public void getFailure() {
         // given
@@ -103,4 +183,46 @@ public class RestClientTest {
         // then
         assertEquals(BODY_RESPONSE, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getWithTransport() {
+        // given
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .willReturn(aResponse().withStatus(200).withBody(BODY_RESPONSE)));
+        final AtomicReference<Map<String, String>> sentHeaders = new AtomicReference<Map<String, String>>();
+        HttpTransport transport = (method, url, headers, body) -> {
+            sentHeaders.set(headers);
+            return new UrlConnectionTransport().send(method, url, headers, body);
+        };
+
+        // when
+        String result = RestClient.create(String.format("%s%s", address, API_ENDPOINT))
+                                  .withHeader("Metadata", "true")
+                                  .withTransport(transport)
+                                  .get();
+
+        // then
+        assertEquals(BODY_RESPONSE, result);
+        assertEquals("true", sentHeaders.get().get("Metadata"));
+        assertEquals("gzip, deflate", sentHeaders.get().get("Accept-Encoding"));
+    }
+
+    @Test
+    public void getWithHedging() {
+        // given
+        stubFor(get(urlEqualTo(API_ENDPOINT))
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "etag-1").withBody(BODY_RESPONSE)));
+        RequestHedger hedger = new RequestHedger("test", 50, 100);
+
+        // when
+        RestClient restClient = null;
+        for (int i = 0; i <= RequestHedger.MIN_SAMPLES; i++) {
+            restClient = RestClient.create(String.format("%s%s", address, API_ENDPOINT)).withHedging(hedger);
+            assertEquals(BODY_RESPONSE, restClient.get());
+        }
+
+        // then
+        assertEquals("etag-1", restClient.getResponseEtag());
+        assertEquals(RequestHedger.MIN_SAMPLES + 1, hedger.getRequests());
+    }
+}
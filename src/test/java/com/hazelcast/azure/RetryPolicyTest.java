@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+    private final RetryPolicy policy = new RetryPolicy(5, 500, 4000, 10000);
+
+    @Test
+    public void backoffMs() {
+        assertEquals(0, policy.backoffMs(1, 0));
+        assertEquals(250, policy.backoffMs(1, 0.5));
+        assertEquals(999, policy.backoffMs(2, 0.999));
+        assertEquals(1000, policy.backoffMs(3, 0.5));
+        assertEquals(2000, policy.backoffMs(10, 0.5));
+        assertEquals(2000, policy.backoffMs(100, 0.5));
+    }
+
+    @Test
+    public void isRetryable() {
+        assertTrue(policy.isRetryable(new RestClientException("throttled", 429)));
+        assertTrue(policy.isRetryable(new RestClientException("timeout", 408)));
+        assertTrue(policy.isRetryable(new RestClientException("unavailable", 503)));
+        assertTrue(policy.isRetryable(new RestClientException("failure", new SocketTimeoutException())));
+        assertTrue(policy.isRetryable(new NoCredentialsException("no token", new RestClientException("failure", 500))));
+    }
+
+    @Test
+    public void isNotRetryable() {
+        assertFalse(policy.isRetryable(new RestClientException("bad request", 400)));
+        assertFalse(policy.isRetryable(new RestClientException("unauthorized", 401)));
+        assertFalse(policy.isRetryable(new NoCredentialsException("no token", new RestClientException("forbidden", 403))));
+        assertFalse(policy.isRetryable(new RestClientException("not found", 404)));
+        assertFalse(policy.isRetryable(new IllegalStateException()));
+    }
+
+    @Test
+    public void tokenIsRetryableWhileIdentityIsAssigned() {
+        assertTrue(RetryPolicy.token().isRetryable(new RestClientException("not found", 404)));
+        assertTrue(RetryPolicy.token().isRetryable(new RestClientException("gone", 410)));
+        assertFalse(RetryPolicy.token().isRetryable(new RestClientException("forbidden", 403)));
+    }
+
+    @Test
+    public void retryBudget() {
+        // given
+        RetryBudget budget = new RetryBudget(0.5, 0, 2);
+
+        // when
+        boolean first = budget.tryWithdraw();
+        boolean second = budget.tryWithdraw();
+        boolean exhausted = budget.tryWithdraw();
+        budget.deposit();
+        budget.deposit();
+        boolean replenished = budget.tryWithdraw();
+
+        // then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(exhausted);
+        assertTrue(replenished);
+    }
+}
@@ -18,10 +18,9 @@ package com.hazelcast.azure;
 import com.hazelcast.core.HazelcastException;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.concurrent.Callable;
 
-import static com.hazelcast.azure.RetryUtils.BACKOFF_MULTIPLIER;
-import static com.hazelcast.azure.RetryUtils.INITIAL_BACKOFF_MS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
@@ -30,7 +29,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class RetryUtilsTest {
-    private static final Integer RETRIES = 1;
+    private static final RetryPolicy POLICY = new RetryPolicy(1, 10, 100, 10000);
     private static final String RESULT = "result string";
 
     private Callable<String> callable = mock(Callable.class);
@@ -42,7 +41,7 @@ public class RetryUtilsTest {
         given(callable.call()).willReturn(RESULT);
 
         // when
-        String result = RetryUtils.retry(callable, RETRIES);
+        String result = RetryUtils.retry(callable, POLICY);
 
         // then
         assertEquals(RESULT, result);
@@ -53,56 +52,78 @@ public class RetryUtilsTest {
     public void retryRetriesSuccessful()
             throws Exception {
         // given
-        given(callable.call()).willThrow(new RuntimeException()).willReturn(RESULT);
+        given(callable.call()).willThrow(new RestClientException("failure", 503)).willReturn(RESULT);
 
         // when
-        String result = RetryUtils.retry(callable, RETRIES);
+        String result = RetryUtils.retry(callable, POLICY);
 
         // then
         assertEquals(RESULT, result);
         verify(callable, times(2)).call();
     }
 
-    @Test(expected = RuntimeException.class)
+    @Test(expected = RestClientException.class)
     public void retryRetriesFailed()
             throws Exception {
         // given
-        given(callable.call()).willThrow(new RuntimeException()).willThrow(new RuntimeException()).willReturn(RESULT);
+        given(callable.call()).willThrow(new RestClientException("failure", 500))
+                              .willThrow(new RestClientException("failure", 500)).willReturn(RESULT);
 
         // when
-        RetryUtils.retry(callable, RETRIES);
+        RetryUtils.retry(callable, POLICY);
 
         // then
         // throws exception
     }
 
     @Test(expected = HazelcastException.class)
-    public void retryRetriesFailedUncheckedException()
+    public void retryRetriesFailedCheckedException()
             throws Exception {
         // given
-        given(callable.call()).willThrow(new Exception()).willThrow(new Exception()).willReturn(RESULT);
+        given(callable.call()).willThrow(new IOException()).willThrow(new IOException()).willReturn(RESULT);
 
         // when
-        RetryUtils.retry(callable, RETRIES);
+        RetryUtils.retry(callable, POLICY);
 
         // then
         // throws exception
     }
 
     @Test
-    public void retryRetriesWaitExponentialBackoff()
+    public void retryNonRetryableFailsFast()
             throws Exception {
         // given
-        double twoBackoffIntervalsMs = INITIAL_BACKOFF_MS + (BACKOFF_MULTIPLIER * INITIAL_BACKOFF_MS);
-        given(callable.call()).willThrow(new RuntimeException()).willThrow(new RuntimeException()).willReturn(RESULT);
+        given(callable.call()).willThrow(new NoCredentialsException("no token", new RestClientException("forbidden", 403)))
+                              .willReturn(RESULT);
 
         // when
-        long startTimeMs = System.currentTimeMillis();
-        RetryUtils.retry(callable, 5);
-        long endTimeMs = System.currentTimeMillis();
-
-        // then
-        assertTrue(twoBackoffIntervalsMs < (endTimeMs - startTimeMs));
+        try {
+            RetryUtils.retry(callable, POLICY);
+        } catch (NoCredentialsException e) {
+            // then
+            verify(callable).call();
+            return;
+        }
+        throw new AssertionError("NoCredentialsException expected");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void retryWithinBudget()
+            throws Exception {
+        // given
+        RetryPolicy policy = new RetryPolicy(5, 10000, 10000, 0);
+        given(callable.call()).willThrow(new RestClientException("throttled", 429)).willReturn(RESULT);
+
+        // when
+        long startTimeMs = System.currentTimeMillis();
+        try {
+            RetryUtils.retry(callable, policy);
+        } catch (RestClientException e) {
+            // then
+            assertTrue(System.currentTimeMillis() - startTimeMs < 10000);
+            verify(callable).call();
+            return;
+        }
+        throw new AssertionError("RestClientException expected unless the random backoff was 0");
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringInternerTest {
+
+    @Test
+    public void internWithinRound() {
+        // given
+        StringInterner interner = new StringInterner();
+        String first = new String("10.0.0.1");
+
+        // when
+        String result1 = interner.intern(first);
+        String result2 = interner.intern(new String("10.0.0.1"));
+
+        // then
+        assertSame(first, result1);
+        assertSame(first, result2);
+    }
+
+    @Test
+    public void internAcrossRounds() {
+        // given
+        StringInterner interner = new StringInterner();
+        String first = interner.intern(new String("10.0.0.1"));
+        interner.nextRound();
+
+        // when
+        String result = interner.intern(new String("10.0.0.1"));
+
+        // then
+        assertSame(first, result);
+    }
+
+    @Test
+    public void forgetUnusedValues() {
+        // given
+        StringInterner interner = new StringInterner();
+        String first = interner.intern(new String("10.0.0.1"));
+        interner.nextRound();
+        interner.nextRound();
+
+        // when
+        String result = interner.intern(new String("10.0.0.1"));
+
+        // then
+        assertNotSame(first, result);
+    }
+
+    @Test
+    public void internNull() {
+        assertNull(new StringInterner().intern(null));
+    }
+}
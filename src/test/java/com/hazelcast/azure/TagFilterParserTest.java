@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.azure;
+
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.internal.json.Json;
+import com.hazelcast.internal.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TagFilterParserTest {
+    @Test
+    public void singleCondition() {
+        // given
+        String spec = " key = 'value with spaces' ";
+
+        // when
+        TagFilter result = TagFilterParser.parse(spec);
+
+        // then
+        assertEquals(new Tag("key", "value with spaces"), result);
+    }
+
+    @Test
+    public void expression() {
+        // given
+        String spec = "env=prod AND role in (data, cp) and not drain=true";
+
+        // when
+        TagFilter result = TagFilterParser.parse(spec);
+
+        // then
+        assertTrue(result.matches(tags("env", "prod", "role", "cp")));
+        assertTrue(result.matches(tags("env", "prod", "role", "data", "drain", "false")));
+        assertFalse(result.matches(tags("env", "prod", "role", "data", "drain", "true")));
+        assertFalse(result.matches(tags("env", "prod", "role", "client")));
+        assertFalse(result.matches(tags("env", "dev", "role", "cp")));
+        assertFalse(result.matches(tags("role", "cp")));
+    }
+
+    @Test
+    public void orHasLowerPrecedenceThanAnd() {
+        // given
+        String spec = "a=1 or b=2 and c=3";
+
+        // when
+        TagFilter result = TagFilterParser.parse(spec);
+
+        // then
+        assertTrue(result.matches(tags("a", "1")));
+        assertFalse(result.matches(tags("b", "2")));
+        assertTrue(result.matches(tags("b", "2", "c", "3")));
+    }
+
+    @Test
+    public void parenthesesAndNotEquals() {
+        // given
+        String spec = "(a=1 or b=2) and c!=3";
+
+        // when
+        TagFilter result = TagFilterParser.parse(spec);
+
+        // then
+        assertTrue(result.matches(tags("b", "2")));
+        assertFalse(result.matches(tags("b", "2", "c", "3")));
+        assertFalse(result.matches(tags("c", "4")));
+    }
+
+    @Test
+    public void quotedValues() {
+        // given
+        String spec = "'team name'=\"data (eu)\" or x=y";
+
+        // when
+        TagFilter result = TagFilterParser.parse(spec);
+
+        // then
+        assertTrue(result.matches(tags("team name", "data (eu)")));
+        assertFalse(result.matches(tags("team name", "data")));
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void missingClosingParenthesis() {
+        TagFilterParser.parse("(a=1 or b=2");
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void missingValue() {
+        TagFilterParser.parse("a= and b=2");
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void missingOperator() {
+        TagFilterParser.parse("not a");
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void unterminatedQuote() {
+        TagFilterParser.parse("a='1 or b=2");
+    }
+
+    private static JsonObject tags(String... keyValues) {
+        JsonObject tags = Json.object();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            tags.add(keyValues[i], keyValues[i + 1]);
+        }
+        return tags;
+    }
+}
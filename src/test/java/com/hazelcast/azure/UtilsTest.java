@@ -20,7 +20,10 @@ import org.junit.Test;
 import static com.hazelcast.azure.Utils.isAllFilled;
 import static com.hazelcast.azure.Utils.isAnyFilled;
 import static com.hazelcast.azure.Utils.isEmpty;
+import static com.hazelcast.azure.Utils.networkInterfaceId;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class UtilsTest {
@@ -46,4 +49,14 @@ public class UtilsTest {
         assertFalse(isAnyFilled("", "", null));
     }
 
+    @Test
+    public void networkInterfaceIdTest(){
+        String nicId = "/subscriptions/s/resourceGroups/rg/providers/Microsoft.Network/networkInterfaces/nic-1";
+        assertEquals(nicId, networkInterfaceId(nicId + "/ipConfigurations/ipconfig1"));
+        assertEquals(nicId, networkInterfaceId(nicId + "/IPCONFIGURATIONS/ipconfig1"));
+        assertNull(networkInterfaceId("/subscriptions/s/resourceGroups/rg/providers/Microsoft.Network/loadBalancers/lb"
+                + "/frontendIPConfigurations/frontend"));
+        assertNull(networkInterfaceId(null));
+    }
+
 }
\ No newline at end of file